@@ -31,8 +31,15 @@ public class Constants {
     public static final String APP_PROPERTY_EXECUTION_SERVICE_AUTH_METHOD_SSHAGENT = "sshagent";
     public static final String APP_PROPERTY_EXECUTION_SERVICE_AUTH_METHOD_KEYFILE = "keyfile";
     public static final String APP_PROPERTY_EXECUTION_SERVICE_AUTH_METHOD_KEYFILE_LOCATION = "executionServiceKeyfileLocation";
+    public static final String APP_PROPERTY_EXECUTION_SERVICE_MAX_CHANNELS_PER_HOST = "executionServiceMaxChannelsPerHost";
+    public static final String APP_PROPERTY_EXECUTION_SERVICE_COMMAND_TIMEOUT = "executionServiceCommandTimeout";
     public static final String APP_PROPERTY_CONFIGURATION_DIRECTORIES = "configurationDirectories";
     public static final String APP_PROPERTY_PLUGIN_DIRECTORIES = "pluginDirectories";
+    public static final String APP_PROPERTY_PERSIST_TOOL_DIGESTS = "persistToolDigests";
+    public static final String APP_PROPERTY_PERSIST_PRELOADED_CONFIGURATIONS = "persistPreloadedConfigurations";
+    public static final String APP_PROPERTY_PERSIST_PLUGIN_CATALOG = "persistPluginCatalog";
+    public static final String APP_PROPERTY_PERSIST_EXEC_CACHE_INDICES = "persistExecCacheIndices";
+    public static final String APP_PROPERTY_PARALLEL_DATASETS = "parallelDataSets";
     public static final String APP_PROPERTIES_FILENAME = "applicationProperties.ini";
     public static final String APP_PROPERTY_NET_USEPROXY = "netUseProxy";
     public static final String APP_PROPERTY_NET_PROXY_ADDRESS = "netProxyAddress";
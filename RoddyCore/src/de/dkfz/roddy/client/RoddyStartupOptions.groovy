@@ -37,6 +37,7 @@ enum RoddyStartupOptions {
     vv(false), // Verbosity of 5
     debugOptions(true),
     waitforjobs,
+    paralleldatasets(true),
     test,
     useiodir(true),
     usemetadatatable(true),
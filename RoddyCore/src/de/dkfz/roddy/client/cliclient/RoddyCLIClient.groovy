@@ -390,7 +390,7 @@ class RoddyCLIClient {
             if (commandLineCall.isOptionSet(RoddyStartupOptions.extendedlist)) {
                 for (ExecutionContext executionContext in executionContexts) {
 
-                    def cvalues = executionContext.analysis.configuration.configurationValues
+                    def cvalues = executionContext.configuration.configurationValues
                     cvalues.allValues.each {
                         String id, ConfigurationValue cvalue ->
                             def inheritanceList = cvalues.getInheritanceList(id)
@@ -408,7 +408,7 @@ class RoddyCLIClient {
             } else {
                 for (ExecutionContext executionContext in executionContexts) {
 
-                    def cvalues = executionContext.analysis.configuration.configurationValues
+                    def cvalues = executionContext.configuration.configurationValues
                     cvalues.allValues.each {
                         String id, ConfigurationValue cvalue ->
                             try {
@@ -426,7 +426,7 @@ class RoddyCLIClient {
         } else {
             for (executionContext in executionContexts) {
                 System.out.println(ConfigurationConverter.
-                        convertAutomatically(executionContext, executionContext.analysis.configuration))
+                        convertAutomatically(executionContext, executionContext.configuration))
             }
         }
     }
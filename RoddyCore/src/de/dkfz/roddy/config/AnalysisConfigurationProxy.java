@@ -191,6 +191,11 @@ public class AnalysisConfigurationProxy extends AnalysisConfiguration {
         return checkAnalysisConfig().getFilenamePatterns();
     }
 
+    @Override
+    public FilenamePatternIndex getFilenamePatternIndex() {
+        return checkAnalysisConfig().getFilenamePatternIndex();
+    }
+
     @Override
     public RecursiveOverridableMapContainer<String, ToolEntry, Configuration> getTools() {
         return checkAnalysisConfig().getTools();
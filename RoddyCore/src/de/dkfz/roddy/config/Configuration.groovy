@@ -15,8 +15,9 @@ import de.dkfz.roddy.core.ExecutionContext
 import de.dkfz.roddy.core.RuntimeService
 import de.dkfz.roddy.plugins.LibrariesFactory
 import de.dkfz.roddy.plugins.PluginInfo
+import de.dkfz.roddy.tools.FileDigestCache
 import de.dkfz.roddy.tools.LoggerWrapper
-import de.dkfz.roddy.tools.RoddyIOHelperMethods
+import de.dkfz.roddy.tools.Tuple3
 import groovy.transform.CompileStatic
 import org.apache.commons.io.filefilter.WildcardFileFilter
 
@@ -101,6 +102,16 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
     private RecursiveOverridableMapContainer<String, FilenamePattern, Configuration> filenamePatterns =
             new RecursiveOverridableMapContainer<>(this, "filenamePatterns")
 
+    /**
+     * Evaluated configuration values of this configuration, see ConfigurationValueHelper
+     */
+    private final ConfigurationValueEvaluationCache evaluationCache = new ConfigurationValueEvaluationCache()
+
+    /**
+     * Filename patterns by file class, see getFilenamePatternIndex()
+     */
+    private volatile FilenamePatternIndex filenamePatternIndex
+
     Configuration() {
         preloadedConfiguration = null
     }
@@ -160,17 +171,33 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
         return preloadedConfiguration.type
     }
 
+    /**
+     * Remove the filename patterns of this configuration and hide those of all parents. The parents are not modified,
+     * because imported configurations are shared with other configurations.
+     */
     void removeFilenamePatternsRecursively() {
-        this.filenamePatterns = new RecursiveOverridableMapContainer<>(this, "filenamePatterns")
-        for (Configuration parent : parents) {
-            parent.removeFilenamePatternsRecursively()
-        }
+        this.filenamePatterns = new RecursiveOverridableMapContainer<>(this, "filenamePatterns", false)
+        RecursiveOverridableMapContainer.markModified()
     }
 
     RecursiveOverridableMapContainer<String, FilenamePattern, Configuration> getFilenamePatterns() {
         filenamePatterns
     }
 
+    /**
+     * Get the filename patterns of this configuration and its parents grouped by file class. The index is built lazily
+     * and rebuilt, if filename patterns in the hierarchy changed.
+     */
+    FilenamePatternIndex getFilenamePatternIndex() {
+        Map<String, FilenamePattern> patterns = getFilenamePatterns().getAllUnevaluatedValues()
+        FilenamePatternIndex index = filenamePatternIndex
+        if (index == null || !index.isIndexOf(patterns)) {
+            index = new FilenamePatternIndex(patterns)
+            filenamePatternIndex = index
+        }
+        return index
+    }
+
     RecursiveOverridableMapContainer<String, ToolEntry, Configuration> getTools() {
         tools
     }
@@ -187,6 +214,10 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
         configurationValueBundles
     }
 
+    ConfigurationValueEvaluationCache getEvaluationCache() {
+        evaluationCache
+    }
+
     /**
      * Returns the name of this configuration
      *
@@ -290,6 +321,7 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
     void setParent(Configuration c) {
         parents.clear()
         parents.add(c)
+        RecursiveOverridableMapContainer.markModified()
     }
 
     /**
@@ -300,8 +332,10 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
      */
     void addParent(Configuration p) {
         if (p == null) return
-        if (!parents.contains(p))
+        if (!parents.contains(p)) {
             parents.add(p)
+            RecursiveOverridableMapContainer.markModified()
+        }
     }
 
     Map<String, Configuration> getSubConfigurations() {
@@ -343,12 +377,27 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
         return null;
     }
 
-    File getSourceToolPath(String tool) throws ConfigurationError {
+    /**
+     * The tool directories of the loaded plugins. The map is rebuilt, if plugins were loaded in the meantime.
+     */
+    private static volatile Tuple3<List<PluginInfo>, Integer, Map<String, File>> toolBasePaths
+
+    private static Map<String, File> getToolBasePaths() {
         List<PluginInfo> pluginInfos = LibrariesFactory.getInstance().getLoadedPlugins()
+        Tuple3<List<PluginInfo>, Integer, Map<String, File>> cached = toolBasePaths
+        if (cached != null && cached.x.is(pluginInfos) && cached.y == pluginInfos.size())
+            return cached.z
+
         LinkedHashMap<String, File> availableBasePaths = [:]
         for (PluginInfo pluginInfo : pluginInfos) {
             availableBasePaths.putAll(pluginInfo.toolsDirectories)
         }
+        toolBasePaths = new Tuple3<List<PluginInfo>, Integer, Map<String, File>>(pluginInfos, pluginInfos.size(), availableBasePaths)
+        return availableBasePaths
+    }
+
+    File getSourceToolPath(String tool) throws ConfigurationError {
+        Map<String, File> availableBasePaths = getToolBasePaths()
 
         ToolEntry te = null
         try {
@@ -387,7 +436,7 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
             throw new ConfigurationError('Tool ID not correctly specified for md5 query', tool)
         }
         File sourceToolPath = getSourceToolPath(tool)
-        return RoddyIOHelperMethods.getMD5OfFile(sourceToolPath)
+        return FileDigestCache.getInstance().getMD5(sourceToolPath)
     }
 
     String getSSHExecutionUser() {
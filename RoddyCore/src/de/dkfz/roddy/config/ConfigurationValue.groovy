@@ -17,6 +17,7 @@ import de.dkfz.roddy.execution.io.ExecutionService
 import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
 import de.dkfz.roddy.tools.LoggerWrapper
 import de.dkfz.roddy.tools.RoddyConversionHelperMethods
+import de.dkfz.roddy.tools.Tuple2
 import groovy.transform.CompileStatic
 
 import static de.dkfz.roddy.StringConstants.*
@@ -226,8 +227,11 @@ class ConfigurationValue implements RecursiveOverridableMapContainer.Identifiabl
         return temp
     }
 
-    private ExecutionContext _toFileExecutionContext
-    private File _toFileCache
+    /**
+     * The context of the last toFile(ExecutionContext) call and its result. Both are kept in one object, as contexts may
+     * be processed in parallel.
+     */
+    private volatile Tuple2<ExecutionContext, File> _toFileCache
 
     /**
      * Converts this configuration value to a path and fills in data set and analysis specific settings.
@@ -250,31 +254,36 @@ class ConfigurationValue implements RecursiveOverridableMapContainer.Identifiabl
         return new File(temp)
     }
 
+    /**
+     * Converts this configuration value to a path for the context. The value is evaluated in the configuration of the
+     * context, which contains the execution directories and other values, which are specific to the context.
+     */
     File toFile(ExecutionContext context) {
-        if (context != _toFileExecutionContext) {
-            _toFileExecutionContext = context
-            _toFileCache = null
-        }
-        if (_toFileCache != null) {
-            return _toFileCache
+        Tuple2<ExecutionContext, File> cached = _toFileCache
+        if (cached != null && cached.x.is(context)) {
+            return cached.y
         }
 
+        File result
         if (context == null) {
-            _toFileCache = new File(value)
-            return _toFileCache
-        }
-        try {
-            String temp = toFile(context.analysis, context.dataSet).path
-            if (value.startsWith("\${DIR_BUNDLED_FILES}") || value.startsWith("\${DIR_RODDY}")) {
-                temp = Roddy.getApplicationDirectory().absolutePath +
-                        FileSystemAccessProvider.instance.pathSeparator +
-                        temp
+            result = new File(value)
+        } else {
+            try {
+                String temp = ConfigurationValueHelper.evaluateValue(id, value ?: "", configuration)
+                if (context.analysis) temp = ConfigurationValueHelper.evaluateValue(id, temp, context.configuration)
+                if (context.dataSet) temp = ConfigurationValueHelper.evaluateValue(id, temp, context.dataSet.configuration)
+                if (value.startsWith("\${DIR_BUNDLED_FILES}") || value.startsWith("\${DIR_RODDY}")) {
+                    temp = Roddy.getApplicationDirectory().absolutePath +
+                            FileSystemAccessProvider.instance.pathSeparator +
+                            temp
+                }
+                result = new File(temp)
+            } catch (Exception ex) {
+                return null
             }
-            _toFileCache = new File(temp)
-            return _toFileCache
-        } catch (Exception ex) {
-            return null
         }
+        _toFileCache = new Tuple2<ExecutionContext, File>(context, result)
+        return result
     }
 
     Boolean toBoolean() {
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Stores evaluated configuration values of a single configuration by value id.
+ *
+ * Each entry knows the ids of all values it (transitively) references, also the ones which could not be resolved.
+ * An entry is only discarded, if one of those values or the configuration hierarchy changed after the entry was
+ * created. Overriding a single value therefore does not invalidate independent entries.
+ */
+@CompileStatic
+class ConfigurationValueEvaluationCache {
+
+    static class Entry {
+        /**
+         * The unevaluated value, which was used as input for the evaluation
+         */
+        final String value
+
+        final String evaluatedValue
+
+        /**
+         * Ids of all values, which were referenced during the evaluation
+         */
+        final Set<String> dependencies
+
+        /**
+         * The modification count of the configuration containers before the evaluation started
+         */
+        final long modificationCount
+
+        Entry(String value, String evaluatedValue, Set<String> dependencies, long modificationCount) {
+            this.value = value
+            this.evaluatedValue = evaluatedValue
+            this.dependencies = dependencies
+            this.modificationCount = modificationCount
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>()
+
+    /**
+     * @return A valid entry for the id and unevaluated value or null.
+     */
+    Entry get(String id, String value) {
+        if (id == null || value == null) return null
+        Entry entry = entries[id]
+        if (entry == null || entry.value != value)
+            return null
+        if (RecursiveOverridableMapContainer.isModifiedSince(entry.dependencies, entry.modificationCount)) {
+            entries.remove(id, entry)
+            return null
+        }
+        return entry
+    }
+
+    void put(String id, Entry entry) {
+        if (id == null || entry.value == null) return
+        entries[id] = entry
+    }
+
+    void clear() {
+        entries.clear()
+    }
+
+    int size() {
+        return entries.size()
+    }
+}
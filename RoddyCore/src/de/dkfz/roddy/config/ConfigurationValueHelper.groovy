@@ -64,7 +64,38 @@ class ConfigurationValueHelper {
      * @return
      */
     static String evaluateValue(String key, String value, Configuration configuration) {
-        evaluateValueImpl(key, value, configuration, [])
+        evaluateValueCached(key, value, configuration, [], new HashSet<String>())
+    }
+
+    /**
+     *  Look up the evaluated value in the evaluation cache of the configuration or evaluate and store it.
+     *  Cached values are only reused, if neither the value itself nor one of the values it depends on were changed.
+     *
+     * @param dependencies    collects the ids of all (transitively) referenced values
+     */
+    private static String evaluateValueCached(String valueID,
+                                              String initialValue,
+                                              Configuration configuration,
+                                              List<String> blackList,
+                                              Set<String> dependencies) {
+        if (configuration == null || initialValue == null)
+            return evaluateValueImpl(valueID, initialValue, configuration, blackList, dependencies)
+
+        ConfigurationValueEvaluationCache cache = configuration.evaluationCache
+        ConfigurationValueEvaluationCache.Entry entry = cache.get(valueID, initialValue)
+
+        // A blacklisted dependency means a cyclic reference, which needs to be reported by the full evaluation.
+        if (entry != null && !blackList.any { String it -> entry.dependencies.contains(it) }) {
+            dependencies.addAll(entry.dependencies)
+            return entry.evaluatedValue
+        }
+
+        long modificationCount = RecursiveOverridableMapContainer.getModificationCount()
+        Set<String> valueDependencies = new HashSet<String>()
+        String result = evaluateValueImpl(valueID, initialValue, configuration, blackList, valueDependencies)
+        cache.put(valueID, new ConfigurationValueEvaluationCache.Entry(initialValue, result, valueDependencies, modificationCount))
+        dependencies.addAll(valueDependencies)
+        return result
     }
 
     /**
@@ -72,14 +103,18 @@ class ConfigurationValueHelper {
      *  evaluated before. If a key re-occurs this means there is a cyclic dependency.
      *
      * @param blackList       values not to be replaced
+     * @param dependencies    collects the ids of all (transitively) referenced values
      */
     private static String evaluateValueImpl(String valueID,
                                             String initialValue,
                                             Configuration configuration,
-                                            List<String> blackList) {
+                                            List<String> blackList,
+                                            Set<String> dependencies) {
         String result = initialValue
         if (configuration != null) {
             List<String> containedKeys = getContainedKeys(result)
+            // Also unresolvable references are dependencies. They might be set later on.
+            dependencies.addAll(containedKeys)
             if (blackList.intersect(containedKeys as Iterable<String>)) {
                 def badConf =
                         configuration.preloadedConfiguration != null ?
@@ -96,10 +131,11 @@ class ConfigurationValueHelper {
                 if (configurationValues.hasValue(vName)) {
                     ConfigurationValue referencedValue = configurationValues[vName] as ConfigurationValue
                     result = result.replace("\${$vName}",
-                                            evaluateValueImpl(referencedValue.id,
-                                                              referencedValue.value,
-                                                              referencedValue.configuration,
-                                                              blackList + [vName]))
+                                            evaluateValueCached(referencedValue.id,
+                                                                referencedValue.value,
+                                                                referencedValue.configuration,
+                                                                blackList + [vName],
+                                                                dependencies))
                 }
             }
         }
@@ -28,6 +28,17 @@ public class ContextConfiguration extends AnalysisConfiguration {
         addParent(applicationSpecificConfiguration);
     }
 
+    /**
+     * Creates a layer on top of a context configuration, which is shared by several execution contexts. Values, which
+     * are only valid for a single context, like its execution directories, are put into the layer.
+     */
+    public ContextConfiguration(ContextConfiguration sharedConfiguration) {
+        super(sharedConfiguration.getPreloadedConfiguration(), sharedConfiguration.getWorkflowClass(), sharedConfiguration.getRuntimeServiceClass(), sharedConfiguration, sharedConfiguration.getListOfUsedTools(), sharedConfiguration.getUsedToolFolders(), sharedConfiguration.getCleanupScript());
+        this.applicationSpecificConfiguration = sharedConfiguration.applicationSpecificConfiguration;
+        this.analysisConfiguration = sharedConfiguration.analysisConfiguration;
+        this.projectConfiguration = sharedConfiguration.projectConfiguration;
+    }
+
     public AnalysisConfiguration getAnalysisConfiguration() {
         return analysisConfiguration;
     }
@@ -41,10 +41,18 @@ public abstract class FilenamePattern implements RecursiveOverridableMapContaine
     protected boolean acceptsFileArrays;
     protected int enforcedArraySize;
 
+    /**
+     * The pattern split up into literals and placeholders
+     */
+    protected final FilenamePatternTemplate template;
+
     public FilenamePattern(Class<BaseFile> cls, String pattern, String selectionTag) {
         this.cls = cls;
         this.pattern = pattern;
         this.selectionTag = selectionTag != null ? selectionTag : DEFAULT_SELECTIONTAG;
+        this.template = FilenamePatternTemplate.compile(pattern);
+        if (pattern != null && !template.isCompiled())
+            logger.postRareInfo("Filename pattern " + pattern + " could not be compiled and will be applied stepwise.");
     }
 
     public Class<BaseFile> getCls() {
@@ -55,6 +63,10 @@ public abstract class FilenamePattern implements RecursiveOverridableMapContaine
         return pattern;
     }
 
+    public FilenamePatternTemplate getTemplate() {
+        return template;
+    }
+
     public boolean hasSelectionTag() {
         return !selectionTag.equals(DEFAULT_SELECTIONTAG);
     }
@@ -170,16 +182,18 @@ public abstract class FilenamePattern implements RecursiveOverridableMapContaine
                 if (s.contains(odComp)) {
                     String cvalID = s.substring(2, s.length() - 1);
                     ConfigurationValue cval = cfg.getConfigurationValues().get(cvalID);
-
-                    String pathSup = cval.getType().equals(CVALUE_TYPE_PATH) ? cval.toFile(context).getAbsolutePath() : cval.toString();
-                    pathSup = pathSup.replace(Roddy.getApplicationDirectory().getAbsolutePath() + "/", ""); //Remove Roddy application folder from path...
-                    src = src.replace(s, pathSup);
+                    src = src.replace(s, getOutputDirectory(cval, context));
                 }
             }
         }
         return src;
     }
 
+    static String getOutputDirectory(ConfigurationValue cval, ExecutionContext context) {
+        String pathSup = cval.getType().equals(CVALUE_TYPE_PATH) ? cval.toFile(context).getAbsolutePath() : cval.toString();
+        return pathSup.replace(Roddy.getApplicationDirectory().getAbsolutePath() + "/", ""); //Remove Roddy application folder from path...
+    }
+
     /**
      * Effectively try to resolve all the unresolved variables and ${cvalue,} marked variables
      *
@@ -307,6 +321,25 @@ public abstract class FilenamePattern implements RecursiveOverridableMapContaine
      * @return
      */
     public String apply(BaseFile[] baseFiles) {
+        if (template.isCompiled() && !template.hasFailed()) {
+            try {
+                return template.apply(this, baseFiles);
+            } catch (Exception e) {
+                // The stepwise replacement will report the error. Later calls do not try the template again.
+                template.markFailed();
+                logger.rare("Filename pattern " + pattern + " could not be applied with its template and will be applied stepwise: " + e);
+            }
+        }
+        return applyStepwise(baseFiles);
+    }
+
+    /**
+     * Applies the pattern by replacing one kind of placeholder after the other.
+     *
+     * @param baseFiles
+     * @return
+     */
+    String applyStepwise(BaseFile[] baseFiles) {
 
         String temp = pattern;
         try {
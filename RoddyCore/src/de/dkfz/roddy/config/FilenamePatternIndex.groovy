@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import de.dkfz.roddy.knowledge.files.BaseFile
+import groovy.transform.CompileStatic
+
+/**
+ * All filename patterns of a configuration and its parents grouped by file class and pattern dependency.
+ *
+ * The index is immutable. Configuration builds a new one, if the filename patterns in the hierarchy changed.
+ * Readers therefore do not need any locking.
+ */
+@CompileStatic
+class FilenamePatternIndex {
+
+    /**
+     * The resolved filename patterns the index was built from
+     */
+    private final Map<String, FilenamePattern> source
+
+    private final Map<Class, Map<FilenamePatternDependency, List<FilenamePattern>>> patternsByClass
+
+    private static final Map<FilenamePatternDependency, List<FilenamePattern>> noPatterns = createPatternMap()
+
+    FilenamePatternIndex(Map<String, FilenamePattern> source) {
+        this.source = source
+
+        Map<Class, Map<FilenamePatternDependency, List<FilenamePattern>>> patternsByClass = [:]
+        for (FilenamePattern fp : source.values()) {
+            Map<FilenamePatternDependency, List<FilenamePattern>> patterns = patternsByClass[fp.cls]
+            if (patterns == null) {
+                patterns = createPatternMap()
+                patternsByClass[fp.cls] = patterns
+            }
+            patterns[fp.filenamePatternDependency] << fp
+        }
+        this.patternsByClass = patternsByClass
+    }
+
+    private static Map<FilenamePatternDependency, List<FilenamePattern>> createPatternMap() {
+        Map<FilenamePatternDependency, List<FilenamePattern>> patterns = new LinkedHashMap<>()
+        for (FilenamePatternDependency dependency : FilenamePatternDependency.values())
+            patterns[dependency] = new ArrayList<FilenamePattern>()
+        return patterns
+    }
+
+    /**
+     * @return true, if the index was built from exactly this map of resolved filename patterns
+     */
+    boolean isIndexOf(Map<String, FilenamePattern> patterns) {
+        return source.is(patterns)
+    }
+
+    boolean hasPatterns(Class<? extends BaseFile> cls) {
+        return patternsByClass.containsKey(cls)
+    }
+
+    /**
+     * @return The patterns for the file class in the order of their definition. The map and lists must not be modified.
+     */
+    Map<FilenamePatternDependency, List<FilenamePattern>> getPatterns(Class<? extends BaseFile> cls) {
+        return patternsByClass[cls] ?: noPatterns
+    }
+
+    List<FilenamePattern> getPatterns(Class<? extends BaseFile> cls, FilenamePatternDependency dependency) {
+        return getPatterns(cls)[dependency]
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config;
+
+import de.dkfz.roddy.config.FilenamePatternHelper.Command;
+import de.dkfz.roddy.config.FilenamePatternHelper.CommandAttribute;
+import de.dkfz.roddy.core.ExecutionContext;
+import de.dkfz.roddy.knowledge.files.BaseFile;
+import de.dkfz.roddy.knowledge.files.FileStageSettings;
+import de.dkfz.roddy.tools.LoggerWrapper;
+import de.dkfz.roddy.tools.RoddyIOHelperMethods;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A filename pattern which was split up into literal text and typed placeholders when the configuration was loaded.
+ * <p>
+ * Applying the template resolves all placeholders in a single pass in the same way, the stepwise replacement in
+ * FilenamePattern does. Only if the result still contains unresolved variables (i.e. from nested configuration values
+ * or for file stage specific values provided by plugins), the remaining steps of the stepwise replacement are used.
+ * <p>
+ * Patterns with constructs the template does not support are not compiled and are always applied stepwise.
+ */
+public class FilenamePatternTemplate {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(FilenamePatternTemplate.class.getSimpleName());
+
+    public enum PlaceholderType {
+        literal,
+        sourcefile,
+        sourcefileAtomic,
+        sourcefileProperty,
+        sourcefileAtomicPrefix,
+        sourcepath,
+        fgindex,
+        outputAnalysisBaseDirectory,
+        outputDirectory,
+        cvalue,
+        jobParameter,
+        fileStageID,
+        dataSet,
+        arrayValue,
+        variable
+    }
+
+    public static class Token {
+        public final PlaceholderType type;
+
+        /**
+         * The literal text or the full placeholder like ${cvalue,name="abc"}
+         */
+        public final String text;
+
+        /**
+         * The name of the placeholder. For cvalue placeholders the name attribute, for source file properties the
+         * property name and for array values the name without the index.
+         */
+        public final String name;
+
+        /**
+         * The default value of cvalue placeholders or the delimiter of sourcefileAtomicPrefix placeholders
+         */
+        public final String attribute;
+
+        public final int index;
+
+        Token(PlaceholderType type, String text, String name, String attribute, int index) {
+            this.type = type;
+            this.text = text;
+            this.name = name;
+            this.attribute = attribute;
+            this.index = index;
+        }
+
+        public String toString() {
+            return type + ": " + text;
+        }
+    }
+
+    private static final String OUTPUT_DIRECTORY_COMPONENT = "OutputDirectory";
+
+    private static final Pattern OUTPUT_DIRECTORY_SEGMENT = Pattern.compile("[$][{][^{},]*[}]");
+
+    private static final Pattern ARRAY_VALUE = Pattern.compile("(fileStageID|pid|dataSet)\\[([0-9]+)\\]");
+
+    private static final ThreadLocal<StringBuilder> builder = ThreadLocal.withInitial(StringBuilder::new);
+
+    private final String pattern;
+
+    private final List<Token> tokens;
+
+    private final boolean usesSourceFile;
+
+    /**
+     * Set, if applying the template failed once. The pattern is then always applied stepwise.
+     */
+    private volatile boolean failed;
+
+    private FilenamePatternTemplate(String pattern, List<Token> tokens) {
+        this.pattern = pattern;
+        this.tokens = tokens != null ? Collections.unmodifiableList(tokens) : null;
+        boolean usesSourceFile = false;
+        if (tokens != null)
+            for (Token token : tokens)
+                usesSourceFile |= isSourceFileToken(token.type);
+        this.usesSourceFile = usesSourceFile;
+    }
+
+    /**
+     * Split up the pattern into tokens.
+     *
+     * @return A template, which might not be compiled, if the pattern is not supported. Never null.
+     */
+    public static FilenamePatternTemplate compile(String pattern) {
+        if (pattern == null || !hasSupportedOutputDirectories(pattern))
+            return new FilenamePatternTemplate(pattern, null);
+
+        List<Token> tokens = new ArrayList<>();
+        int position = 0;
+        while (position < pattern.length()) {
+            int start = pattern.indexOf("${", position);
+            if (start < 0) {
+                tokens.add(literal(pattern.substring(position)));
+                break;
+            }
+            int end = pattern.indexOf('}', start);
+            if (end < 0 || end == start + 2 || pattern.substring(start + 2, end).contains("${"))
+                return new FilenamePatternTemplate(pattern, null);
+
+            if (start > position)
+                tokens.add(literal(pattern.substring(position, start)));
+            Token token = toToken(FilenamePatternHelper.extractCommand("${", pattern, start));
+            if (token == null)
+                return new FilenamePatternTemplate(pattern, null);
+            tokens.add(token);
+            position = end + 1;
+        }
+        return new FilenamePatternTemplate(pattern, tokens);
+    }
+
+    /**
+     * Directories like ${someOutputDirectory} are replaced as full path segments. Everything else is left to the
+     * stepwise replacement.
+     */
+    private static boolean hasSupportedOutputDirectories(String pattern) {
+        if (!pattern.contains(OUTPUT_DIRECTORY_COMPONENT))
+            return true;
+        for (String segment : pattern.split(File.separator)) {
+            if (segment.contains(OUTPUT_DIRECTORY_COMPONENT) && !OUTPUT_DIRECTORY_SEGMENT.matcher(segment).matches())
+                return false;
+        }
+        return true;
+    }
+
+    private static Token literal(String text) {
+        return new Token(PlaceholderType.literal, text, null, null, -1);
+    }
+
+    private static Token placeholder(PlaceholderType type, Command command, String name, String attribute) {
+        return new Token(type, command.fullString, name, attribute, -1);
+    }
+
+    private static Token toToken(Command command) {
+        String full = command.fullString;
+        String rawName = command.rawName;
+
+        if (rawName.contains(OUTPUT_DIRECTORY_COMPONENT))
+            return placeholder(PlaceholderType.outputDirectory, command, rawName, null);
+
+        switch (full) {
+            case "${sourcefile}":
+                return placeholder(PlaceholderType.sourcefile, command, rawName, null);
+            case "${sourcefileAtomic}":
+                return placeholder(PlaceholderType.sourcefileAtomic, command, rawName, null);
+            case "${sourcepath}":
+                return placeholder(PlaceholderType.sourcepath, command, rawName, null);
+            case "${fgindex}":
+                return placeholder(PlaceholderType.fgindex, command, rawName, null);
+            case "${outputAnalysisBaseDirectory}":
+                return placeholder(PlaceholderType.outputAnalysisBaseDirectory, command, rawName, null);
+            case "${fileStageID}":
+                return placeholder(PlaceholderType.fileStageID, command, rawName, null);
+            case "${pid}":
+            case "${dataSet}":
+                return placeholder(PlaceholderType.dataSet, command, rawName, null);
+        }
+
+        if (full.startsWith(FilenamePattern.PLACEHOLDER_SOURCEFILE_PROPERTY)) {
+            if (command.attributes.isEmpty())
+                return null;
+            return placeholder(PlaceholderType.sourcefileProperty, command, command.attributes.keySet().iterator().next(), null);
+        }
+
+        if (full.startsWith(FilenamePattern.PLACEHOLDER_SOURCEFILE_ATOMIC_PREFIX)) {
+            CommandAttribute delimiter = command.attributes.get("delimiter");
+            return placeholder(PlaceholderType.sourcefileAtomicPrefix, command, rawName, delimiter != null ? delimiter.value : null);
+        }
+
+        if (full.startsWith(FilenamePattern.PLACEHOLDER_CVALUE)) {
+            CommandAttribute name = command.attributes.get("name");
+            CommandAttribute defaultValue = command.attributes.get(FilenamePattern.DEFAULT_SELECTIONTAG);
+            return placeholder(PlaceholderType.cvalue, command,
+                    name != null ? name.value : null,
+                    defaultValue != null ? defaultValue.value : null);
+        }
+
+        if (full.startsWith(FilenamePattern.PLACEHOLDER_JOBPARAMETER))
+            return placeholder(PlaceholderType.jobParameter, command, rawName, null);
+
+        Matcher arrayValue = ARRAY_VALUE.matcher(full.substring(2, full.length() - 1));
+        if (arrayValue.matches())
+            return new Token(PlaceholderType.arrayValue, full, arrayValue.group(1), null, Integer.parseInt(arrayValue.group(2)));
+
+        return placeholder(PlaceholderType.variable, command, rawName, null);
+    }
+
+    private static boolean isSourceFileToken(PlaceholderType type) {
+        return type == PlaceholderType.sourcefile
+                || type == PlaceholderType.sourcefileAtomic
+                || type == PlaceholderType.sourcefileProperty
+                || type == PlaceholderType.sourcefileAtomicPrefix
+                || type == PlaceholderType.sourcepath;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public boolean isCompiled() {
+        return tokens != null;
+    }
+
+    public boolean hasFailed() {
+        return failed;
+    }
+
+    void markFailed() {
+        failed = true;
+    }
+
+    public List<Token> getTokens() {
+        return tokens != null ? tokens : Collections.emptyList();
+    }
+
+    /**
+     * Apply the template for the filename pattern to the files.
+     *
+     * @throws Exception like the stepwise replacement, e.g. if the source file has no path.
+     */
+    String apply(FilenamePattern filenamePattern, BaseFile[] baseFiles) throws Exception {
+        BaseFile baseFile = baseFiles[0];
+        Configuration cfg = baseFile.getConfiguration();
+        RecursiveOverridableMapContainerForConfigurationValues configurationValues = cfg.getConfigurationValues();
+        ExecutionContext context = baseFile.getExecutionContext();
+        FileStageSettings fs = baseFile.getFileStage();
+        boolean acceptsArrays = filenamePattern.acceptsFileArrays
+                && (filenamePattern.enforcedArraySize == -1 || filenamePattern.enforcedArraySize == baseFiles.length);
+
+        BaseFile sourceFile = usesSourceFile ? filenamePattern.getSourceFile(baseFiles) : null;
+        File sourcepath = null;
+        if (sourceFile != null) {
+            sourcepath = sourceFile.getPath();
+            if (null == sourcepath)
+                throw new ConfigurationError("Path for source-file unknown. BaseFiles = " + RoddyIOHelperMethods.joinArray(baseFiles, ", "), (String) null);
+        }
+
+        StringBuilder result = builder.get();
+        result.setLength(0);
+
+        // Values taken from the configuration might contain variables themselves.
+        boolean unresolvedValues = false;
+
+        for (Token token : tokens) {
+            String value = null;
+            switch (token.type) {
+                case literal:
+                    result.append(token.text);
+                    continue;
+                case sourcefile:
+                    if (sourcepath != null) value = sourcepath.getAbsolutePath();
+                    break;
+                case sourcefileAtomic:
+                    if (sourcepath != null) value = sourcepath.getName();
+                    break;
+                case sourcepath:
+                    if (sourcepath != null) value = sourcepath.getParent();
+                    break;
+                case sourcefileProperty:
+                    if (sourceFile != null) {
+                        String accessorName = "get" + token.name.substring(0, 1).toUpperCase() + token.name.substring(1);
+                        Method accessorMethod = sourceFile.getClass().getMethod(accessorName);
+                        value = accessorMethod.invoke(sourceFile).toString();
+                    }
+                    break;
+                case sourcefileAtomicPrefix:
+                    if (sourcepath != null && token.attribute != null) {
+                        String sourcename = sourcepath.getName();
+                        value = sourcename.substring(0, sourcename.lastIndexOf(token.attribute));
+                    }
+                    break;
+                case fgindex:
+                    if (baseFile.hasIndexInFileGroup()) value = baseFile.getIdxInFileGroup();
+                    break;
+                case outputAnalysisBaseDirectory:
+                    value = context.getOutputDirectory().getAbsolutePath();
+                    break;
+                case outputDirectory:
+                    value = FilenamePattern.getOutputDirectory(context.getConfiguration().getConfigurationValues().get(token.name), context);
+                    break;
+                case cvalue:
+                    if (token.name == null)
+                        break;
+                    ConfigurationValue cv = null;
+                    if (token.attribute != null)
+                        cv = configurationValues.get(token.name, token.attribute);
+                    else if (configurationValues.hasValue(token.name))
+                        cv = configurationValues.get(token.name, null);
+                    if (cv != null) {
+                        value = cv.toString();
+                        unresolvedValues |= value.contains("${");
+                    } else {
+                        logger.postSometimesInfo("A variable could not be resolved " + token.text + " for a filename pattern. Replace part with the variable name.");
+                        value = "${cvalue}";
+                    }
+                    break;
+                case fileStageID:
+                    if (fs != null && !configurationValues.hasValue(token.name)) value = fs.getIDString();
+                    break;
+                case dataSet:
+                    if (!configurationValues.hasValue(token.name)) value = baseFile.getDataSet().toString();
+                    break;
+                case arrayValue:
+                    if (acceptsArrays && token.index < baseFiles.length && !configurationValues.hasValue(token.text.substring(2, token.text.length() - 1))) {
+                        BaseFile arrayFile = baseFiles[token.index];
+                        value = token.name.equals("fileStageID") ? arrayFile.getFileStage().getIDString() : arrayFile.getDataSet().toString();
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            // Everything, which could not be resolved, is handled like a simple variable: Use a configuration value
+            // with the same name or leave it as it is.
+            if (value == null) {
+                String rawName = token.text.substring(2, token.text.length() - 1).split(",")[0];
+                if (configurationValues.hasValue(rawName)) {
+                    value = configurationValues.get(rawName).toString();
+                    unresolvedValues |= value.contains("${");
+                } else {
+                    value = token.text;
+                }
+            }
+            result.append(value);
+        }
+
+        String filename = result.toString();
+        if (unresolvedValues)
+            filename = filenamePattern.fillConfigurationVariables(filename, cfg);
+        if (filename.contains("${")) {
+            filename = filenamePattern.fillVariablesFromSourceFileValues(baseFile, filename);
+            filename = filenamePattern.fillVariablesFromSourceFileArrayValues(baseFiles, filename);
+        }
+        return filename;
+    }
+}
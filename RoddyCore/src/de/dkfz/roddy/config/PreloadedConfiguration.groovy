@@ -6,17 +6,18 @@
 
 package de.dkfz.roddy.config
 
+import groovy.transform.TypeCheckingMode
 import groovy.util.slurpersupport.NodeChild
 
 /**
  * This class serves as an intermediate parsing result of the XML towards the final Configuration object.
  *
- * The ConfigurationFactory reads in all XMLs (directly using the Groovy XML slurper), only extracts the configuration dependencies (such as
- * analyses and imports), such that only the minimal amount of parsing has to be done. From the parsed information the
+ * The ConfigurationFactory scans all XMLs (with a streaming parser, see ConfigurationHeaderScanner) and only extracts the configuration
+ * dependencies (such as analyses and imports), such that only the minimal amount of parsing has to be done. From the scanned information the
  * PreloadedConfiguration is produced. All preloaded configuration objects are stored as value in an map and indexed by their 'id' field.
  *
  * As soon as it is know, which configurations are required, these Configurations objects are produced using the information in the preloaded
- * configuration and the remaining XMLs.
+ * configuration and the remaining XMLs. The text and the XML node are only read, when they are requested.
  */
 @groovy.transform.CompileStatic
 class PreloadedConfiguration {
@@ -25,12 +26,17 @@ class PreloadedConfiguration {
     public final String name
     public final String description
     public final String className
-    public final NodeChild configurationNode
+    private NodeChild configurationNode
     public final String imports
     public final File file
-    public final String text
+    private String text
     public final String id
 
+    /**
+     * Reads the text of the configuration file, if the text was not passed to the constructor.
+     */
+    private final Closure<String> textLoader
+
     private File readmeFile
 
     private final List<PreloadedConfiguration> subConf
@@ -47,10 +53,31 @@ class PreloadedConfiguration {
             this.analyses = []
     }
 
+    /**
+     * Create a configuration, whose text and XML node are loaded on request. Subconfigurations take their node from
+     * the node of their parent.
+     */
+    PreloadedConfiguration(PreloadedConfiguration parent, Configuration.ConfigurationType type, String name, String description,
+                           String className, String imports, ResourceSetSize usedresourcessize,
+                           List<String> analyses, List<PreloadedConfiguration> subContent, File file, Closure<String> textLoader) {
+        this(parent, type, name, description, className, null, imports, subContent, file, null, usedresourcessize, textLoader)
+        if (analyses != null)
+            this.analyses = analyses
+        else
+            this.analyses = []
+    }
+
     PreloadedConfiguration(PreloadedConfiguration parent, Configuration.ConfigurationType type, String name, String description,
                            String className, NodeChild configurationNode, String imports,
                            List<PreloadedConfiguration> subContent, File file, String text,
                            ResourceSetSize usedresourcessize = null) {
+        this(parent, type, name, description, className, configurationNode, imports, subContent, file, text, usedresourcessize, (Closure<String>) null)
+    }
+
+    private PreloadedConfiguration(PreloadedConfiguration parent, Configuration.ConfigurationType type, String name, String description,
+                                   String className, NodeChild configurationNode, String imports,
+                                   List<PreloadedConfiguration> subContent, File file, String text,
+                                   ResourceSetSize usedresourcessize, Closure<String> textLoader) {
         this.type = type
         this.name = name
         this.className = className
@@ -77,6 +104,27 @@ class PreloadedConfiguration {
         else
             this.subConf = new LinkedList<PreloadedConfiguration>()
         this.text = text
+        this.textLoader = textLoader
+    }
+
+    synchronized String getText() {
+        if (text == null && textLoader != null)
+            text = textLoader.call()
+        return text
+    }
+
+    synchronized NodeChild getConfigurationNode() {
+        if (configurationNode == null && textLoader != null) {
+            configurationNode = parent != null ?
+                    findSubConfigurationNode(parent.getConfigurationNode(), name) :
+                    (NodeChild) new XmlSlurper().parseText(getText())
+        }
+        return configurationNode
+    }
+
+    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
+    private static NodeChild findSubConfigurationNode(NodeChild parentNode, String name) {
+        return (NodeChild) parentNode.subconfigurations.configuration.find { it.@name.text() == name }
     }
 
     /**
@@ -8,10 +8,14 @@ package de.dkfz.roddy.config;
 
 import de.dkfz.roddy.tools.RoddyConversionHelperMethods;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Helps configurations to store overridable versions of configuration values and other things
@@ -22,18 +26,175 @@ public class RecursiveOverridableMapContainer<K, V extends RecursiveOverridableM
         String getID();
     }
 
+    /**
+     * Counts modifications of all containers and of the configuration hierarchy. A change in a parent
+     * configuration affects all of its descendants, which the parent does not know. So instead of tracking
+     * children, every resolved index remembers the counter value it was built for and is rebuilt lazily,
+     * once the hierarchy or a container with the same id changed afterwards.
+     */
+    private static final AtomicLong modificationCount = new AtomicLong();
+
+    /**
+     * The counter value of the last change of the configuration hierarchy itself, e.g. a new parent.
+     */
+    private static final AtomicLong lastStructuralModification = new AtomicLong();
+
+    /**
+     * The counter value of the last change for every modified key. Used by caches which only depend on a
+     * few keys, like the cache for evaluated configuration values.
+     */
+    private static final Map<Object, Long> lastModificationByKey = new ConcurrentHashMap<>();
+
+    /**
+     * The counter value of the last change for every container id, e.g. "filenamePatterns". Containers for
+     * the same kind of values share their id throughout the hierarchy.
+     */
+    private static final Map<String, Long> lastModificationByContainer = new ConcurrentHashMap<>();
+
+    /**
+     * Invalidate the resolved indices of all containers. Call this, whenever the parents of a
+     * configuration change.
+     */
+    static void markModified() {
+        lastStructuralModification.accumulateAndGet(modificationCount.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * Invalidate the resolved indices of all containers with the container id and remember, that the
+     * value for key changed.
+     */
+    static void markModified(String containerID, Object key) {
+        if (key == null) {
+            markModified();
+            return;
+        }
+        long count = modificationCount.incrementAndGet();
+        if (containerID != null)
+            lastModificationByContainer.merge(containerID, count, Math::max);
+        else
+            lastStructuralModification.accumulateAndGet(count, Math::max);
+        lastModificationByKey.merge(key, count, Math::max);
+    }
+
+    /**
+     * @return the current value of the global modification counter.
+     */
+    public static long getModificationCount() {
+        return modificationCount.get();
+    }
+
+    /**
+     * Check, if the configuration hierarchy or one of the keys changed after the counter had the given value.
+     *
+     * @param keys  the keys to check
+     * @param since a value returned by getModificationCount()
+     * @return true, if anything relevant changed.
+     */
+    public static boolean isModifiedSince(Collection<?> keys, long since) {
+        if (modificationCount.get() == since)
+            return false;
+        if (lastStructuralModification.get() > since)
+            return true;
+        for (Object key : keys) {
+            Long lastModification = lastModificationByKey.get(key);
+            if (lastModification != null && lastModification > since)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check, if the configuration hierarchy or a container with the id changed after the counter had the given
+     * value.
+     */
+    static boolean isContainerModifiedSince(String containerID, long since) {
+        if (modificationCount.get() == since)
+            return false;
+        if (lastStructuralModification.get() > since)
+            return true;
+        Long lastModification = containerID != null ? lastModificationByContainer.get(containerID) : null;
+        return containerID == null || (lastModification != null && lastModification > since);
+    }
+
+    /**
+     * The merged, unevaluated values of this container and all of its parents together with the modification
+     * count it was built for.
+     */
+    private static final class ResolvedIndex<K, V> {
+        private final long modificationCount;
+        private final Map<K, V> values;
+
+        private ResolvedIndex(long modificationCount, Map<K, V> values) {
+            this.modificationCount = modificationCount;
+            this.values = values;
+        }
+    }
+
+    /**
+     * A map which invalidates the resolved indices on every modification. The map is exposed via getMap()
+     * and filled directly e.g. by the configuration factory.
+     */
+    private final class ModificationTrackingMap extends LinkedHashMap<K, V> {
+        @Override
+        public V put(K key, V value) {
+            V previous = super.put(key, value);
+            markModified(id, key);
+            return previous;
+        }
+
+        @Override
+        public void putAll(Map<? extends K, ? extends V> m) {
+            super.putAll(m);
+            for (K key : m.keySet())
+                markModified(id, key);
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            V previous = super.putIfAbsent(key, value);
+            markModified(id, key);
+            return previous;
+        }
+
+        @Override
+        public V remove(Object key) {
+            V previous = super.remove(key);
+            markModified(id, key);
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            markModified();
+        }
+    }
+
     /**
      * A list of values in this container's configuration
      */
-    protected final Map<K, V> values = new LinkedHashMap<>();
+    protected final Map<K, V> values = new ModificationTrackingMap();
 
     private final P containerParent;
 
     private final String id;
 
+    /**
+     * If false, the values of the parents' containers are hidden. The parents themselves are left untouched, as
+     * they might be shared with other configurations.
+     */
+    private final boolean inheritsFromParents;
+
+    private volatile ResolvedIndex<K, V> resolvedIndex;
+
     RecursiveOverridableMapContainer(P containerParent, String id) {
+        this(containerParent, id, true);
+    }
+
+    RecursiveOverridableMapContainer(P containerParent, String id, boolean inheritsFromParents) {
         this.containerParent = containerParent;
         this.id = id;
+        this.inheritsFromParents = inheritsFromParents;
     }
 
     public P getContainerParent() {
@@ -54,8 +215,9 @@ public class RecursiveOverridableMapContainer<K, V extends RecursiveOverridableM
 
     public List<K> getListOfAllValueKeys() {
         List<K> allValues = new LinkedList<>();
-        for (P parent : (List<P>) containerParent.getParents())
-            allValues.addAll(parent.getContainer(id).getListOfAllValueKeys());
+        if (inheritsFromParents)
+            for (P parent : (List<P>) containerParent.getParents())
+                allValues.addAll(parent.getContainer(id).getListOfAllValueKeys());
 
         allValues.addAll(values.keySet());
         return allValues;
@@ -79,10 +241,27 @@ public class RecursiveOverridableMapContainer<K, V extends RecursiveOverridableM
         return new LinkedList<>(getAllValues().values());
     }
 
+    /**
+     * @return an unmodifiable map of all unevaluated values of this container and its parents. Values of
+     *         parents with a higher priority override those with a lower priority.
+     */
     protected Map<K, V> getAllUnevaluatedValues() {
+        long currentModificationCount = modificationCount.get();
+        ResolvedIndex<K, V> index = resolvedIndex;
+        if (index == null || isContainerModifiedSince(id, index.modificationCount)) {
+            // If the counter changes while building, the index is simply rebuilt on the next access.
+            index = new ResolvedIndex<>(currentModificationCount, Collections.unmodifiableMap(resolveAllUnevaluatedValues()));
+            resolvedIndex = index;
+        }
+        return index.values;
+    }
+
+    private Map<K, V> resolveAllUnevaluatedValues() {
         Map<K, V> allValues = new LinkedHashMap<>();
-        for (P parent : (List<P>) containerParent.getParents()) {
-            allValues.putAll(parent.getContainer(id).getAllUnevaluatedValues());
+        if (containerParent != null && inheritsFromParents) {
+            for (P parent : (List<P>) containerParent.getParents()) {
+                allValues.putAll(parent.getContainer(id).getAllUnevaluatedValues());
+            }
         }
 
         allValues.putAll(values);
@@ -92,12 +271,12 @@ public class RecursiveOverridableMapContainer<K, V extends RecursiveOverridableM
     public List<V> getInheritanceList(K valueID) throws ConfigurationError {
         List<V> allValues = new LinkedList<>();
 
-        if (getMap().containsKey(valueID))
+        if (values.containsKey(valueID))
             allValues.add(getValue(valueID));
 
         P containerParent = getContainerParent();
 
-        if (containerParent == null)
+        if (containerParent == null || !inheritsFromParents)
             return allValues;
 
         for (Object _configuration : containerParent.getParents()) {
@@ -109,7 +288,7 @@ public class RecursiveOverridableMapContainer<K, V extends RecursiveOverridableM
     }
 
     public boolean hasValue(K id) {
-        return getListOfAllValueKeys().contains(id);
+        return getAllUnevaluatedValues().containsKey(id);
     }
 
     /**
@@ -146,11 +325,7 @@ public class RecursiveOverridableMapContainer<K, V extends RecursiveOverridableM
      * @return
      */
     protected V _getValueUnchecked(K id) {
-        V cval = getAllValues().get(id);
-        if(!values.containsKey(id))
-            return temporarilyElevateValue(cval);
-
-        return cval;
+        return temporarilyElevateValue(getAllUnevaluatedValues().get(id));
     }
 
     /**
@@ -189,40 +189,107 @@ class BashConverter extends ConfigurationConverter {
      */
     Tuple2<Map<String, ConfigurationValue>, Map<String, ConfigurationValue>> getConfigurationValuesSortedByDependenciesAndUnresolvable(List<ConfigurationValue> values) {
 
-        Map<String, ConfigurationValue> listOfUnsortedValues = values.collectEntries { [it.id, it] }
+        Map<String, ConfigurationValue> valuesByID = values.collectEntries { [it.id, it] }
+        List<ConfigurationValue> loadOrder = new ArrayList<ConfigurationValue>(valuesByID.values())
+        int noOfValues = loadOrder.size()
+
+        // Comments and validation rules are never sorted. Values depending on them or on undeclared variables cannot be resolved.
+        Map<String, Integer> sortableIndices = [:]
+        for (int i = 0; i < noOfValues; i++) {
+            if (!isValidationRule(loadOrder[i]) && !isComment(loadOrder[i]))
+                sortableIndices[loadOrder[i].id] = i
+        }
+
+        // Build the dependency graph. unresolvedDependencies counts the distinct dependencies of each value, including
+        // the undeclared ones, which are never resolved. dependentsOf points from a value to the values using it.
+        int[] unresolvedDependencies = new int[noOfValues]
+        List<List<Integer>> dependentsOf = new ArrayList<List<Integer>>(noOfValues)
+        for (int i = 0; i < noOfValues; i++)
+            dependentsOf << new LinkedList<Integer>()
+        for (int i : sortableIndices.values()) {
+            for (String dependency : new LinkedHashSet<String>(ConfigurationValueHelper.getContainedKeys(loadOrder[i].value))) {
+                unresolvedDependencies[i]++
+                Integer dependencyIndex = sortableIndices[dependency]
+                if (dependencyIndex != null)
+                    dependentsOf[dependencyIndex] << i
+            }
+        }
+
+        // Kahn's algorithm. To keep the load order as far as possible, the ready values are taken in passes over the
+        // load order: a value, which gets ready behind the current position, is taken in the next pass.
+        TreeSet<Integer> readyValues = new TreeSet<Integer>(sortableIndices.values().findAll { int i -> unresolvedDependencies[i] == 0 })
         Map<String, ConfigurationValue> listOfSortedValues = new LinkedHashMap<String, ConfigurationValue>()
+        int position = -1
+        while (readyValues) {
+            Integer next = readyValues.higher(position)
+            if (next == null)
+                next = readyValues.first()
+            readyValues.remove(next)
+            position = next
+            listOfSortedValues[loadOrder[next].id] = loadOrder[next]
+            for (int dependent : dependentsOf[next]) {
+                if (--unresolvedDependencies[dependent] == 0)
+                    readyValues << dependent
+            }
+        }
+
+        // Finally put the leftover values to the end of the list. and return this.
+        Map<String, ConfigurationValue> listOfUnsortedValues = new LinkedHashMap<String, ConfigurationValue>()
+        for (ConfigurationValue cv : loadOrder) {
+            if (!listOfSortedValues.containsKey(cv.id))
+                listOfUnsortedValues[cv.id] = cv
+        }
 
-        // Would have like to do this with a simple do .. while loop, but Groovy does not know that yet.
-        boolean listOfSortedValuesChanged = true
-        while (listOfSortedValuesChanged) {
-            Map<String, ConfigurationValue> foundValues = [:]
+        List<String> cyclicValues = findValuesInDependencyCycles(loadOrder, sortableIndices, dependentsOf, listOfSortedValues.keySet())
+        if (cyclicValues)
+            logger.warning("Configuration values with cyclic dependencies cannot be resolved: ${cyclicValues.join(", ")}")
 
-            for (ConfigurationValue cv in listOfUnsortedValues.values().findAll { !isValidationRule(it) && !isComment(it) }) {
+        return new Tuple2<>(listOfSortedValues, listOfUnsortedValues)
+    }
 
-                List<String> dependenciesToOtherValues = ConfigurationValueHelper.getContainedKeys(cv.value)
+    /**
+     * Find the unsorted values, which are part of a dependency cycle. Values only depending on a cycle are removed by
+     * running Kahn's algorithm on the unsorted values, values only used by a cycle by running it backwards.
+     * Values lying on a path from one cycle to another are reported as well.
+     */
+    private static List<String> findValuesInDependencyCycles(List<ConfigurationValue> loadOrder, Map<String, Integer> sortableIndices,
+                                                             List<List<Integer>> dependentsOf, Set<String> sortedIDs) {
+        Set<Integer> remaining = new LinkedHashSet<Integer>(sortableIndices.values().findAll { int i -> !sortedIDs.contains(loadOrder[i].id) })
+        List<List<Integer>> dependenciesOf = new ArrayList<List<Integer>>(loadOrder.size())
+        for (int i = 0; i < loadOrder.size(); i++)
+            dependenciesOf << new LinkedList<Integer>()
+        for (int i : remaining) {
+            for (int dependent : dependentsOf[i])
+                dependenciesOf[dependent] << i
+        }
 
-                // Check, how many dependencies to other values are set and find out for each dependency, if
-                // it was resolved in a former loop run or if it is a blacklisted value.
-                int noOfDependencies = dependenciesToOtherValues.size()
-                int resolvedOrBlacklistedCount = dependenciesToOtherValues.findAll { listOfSortedValues.containsKey(it) }.size()
+        removeAcyclicValues(remaining, dependenciesOf, dependentsOf)
+        removeAcyclicValues(remaining, dependentsOf, dependenciesOf)
+        return remaining.collect { Integer i -> loadOrder[i].id }
+    }
 
-                // Continue, if the value cannot be resolved fully and at least one dependency is left.
-                if (noOfDependencies - resolvedOrBlacklistedCount > 0)
+    /**
+     * Repeatedly remove the values without edges to other remaining values.
+     */
+    private static void removeAcyclicValues(Set<Integer> remaining, List<List<Integer>> edges, List<List<Integer>> reverseEdges) {
+        Map<Integer, Integer> degrees = [:]
+        Deque<Integer> removable = new ArrayDeque<Integer>()
+        for (int i : remaining) {
+            degrees[i] = edges[i].count { Integer j -> remaining.contains(j) } as Integer
+            if (degrees[i] == 0)
+                removable << i
+        }
+        while (removable) {
+            Integer i = removable.poll()
+            remaining.remove(i)
+            for (Integer j : reverseEdges[i]) {
+                if (!remaining.contains(j))
                     continue
-
-                // Otherwise, put the value to the list of found values and to the list of already "sorted" values.
-                foundValues[cv.id] = cv
-                listOfSortedValues[cv.id] = cv
+                degrees[j] = degrees[j] - 1
+                if (degrees[j] == 0)
+                    removable << j
             }
-
-            // Remove any found value from the list of unsorted / not found values.
-            // Remove the values as a block, the list is used in the loop before and should not be touched during the loop
-            listOfUnsortedValues -= foundValues
-            listOfSortedValuesChanged = foundValues.values().size() > 0
         }
-
-        // Finally put the leftover values to the end of the list. and return this.
-        return new Tuple2<>(listOfSortedValues, listOfUnsortedValues)
     }
 
     static boolean isComment(ConfigurationValue cv) {
@@ -29,6 +29,7 @@ import de.dkfz.roddy.plugins.SyntheticPluginInfo
 import de.dkfz.roddy.tools.LoggerWrapper
 import de.dkfz.roddy.tools.RoddyConversionHelperMethods
 import de.dkfz.roddy.tools.RoddyIOHelperMethods
+import de.dkfz.roddy.tools.Tuple2
 import de.dkfz.roddy.tools.Tuple3
 import groovy.transform.CompileStatic
 import groovy.transform.TypeCheckingMode
@@ -37,7 +38,8 @@ import groovy.util.slurpersupport.NodeChildren
 import groovy.xml.StreamingMarkupBuilder
 import groovy.xml.XmlUtil
 import org.apache.commons.io.filefilter.WildcardFileFilter
-import org.xml.sax.SAXParseException
+
+import javax.xml.stream.XMLStreamException
 
 import java.lang.reflect.Field
 import java.lang.reflect.Method
@@ -78,6 +80,12 @@ class ConfigurationFactory {
 
     private Map<ConfigurationType, Map<String, PreloadedConfiguration>> availableConfigurationsByTypeAndID = [:]
 
+    /**
+     * Imported and parent configurations by id, together with the fingerprint of their source file. See
+     * getSharedConfiguration()
+     */
+    private final Map<String, Tuple2<String, Configuration>> sharedConfigurations = [:]
+
 
     @Deprecated // substitute by a version that returns the singleton
     static void initialize(List<File> configurationDirectories = null) {
@@ -277,83 +285,61 @@ class ConfigurationFactory {
     /**
      * Loads basic info about a configuration file.
      *
-     * Basic info contains i.e. the name, description, subconfigs and the type of a configuration.
+     * Basic info contains i.e. the name, description, subconfigs and the type of a configuration. Only the header is
+     * scanned, the text and the XML node of the configuration are read, when the configuration is loaded. If the file
+     * did not change since it was last scanned, the header is taken from the PreloadedConfigurationCache.
      * @see PreloadedConfiguration
      *
      * @param file The config file.
      * @return An object containing basic information about a configuration OR null, if the no preloaded config could be loaded.
      */
     PreloadedConfiguration loadInformationalConfigurationContent(File file) {
-        String text = loadAndPreprocessTextFromFile(file)
-        if (!text) {
-            throw new ParseException("Could not identify file '${file.absolutePath}' as a Roddy configuration file." as String, 0)
-        }
+        PreloadedConfigurationCache cache = PreloadedConfigurationCache.getInstance()
+        PreloadedConfigurationCache.Entry entry = cache.get(file)
+        if (entry == null) {
+            // XML files are read again on demand, converted files are cached with their XML text.
+            boolean isXML = file.name.endsWith(".xml")
+            String text = isXML ? null : loadAndPreprocessTextFromFile(file)
+            if (isXML ? file.length() == 0 : !text) {
+                throw new ParseException("Could not identify file '${file.absolutePath}' as a Roddy configuration file." as String, 0)
+            }
 
-        NodeChild xml
-        try {
-            xml = (NodeChild) new XmlSlurper().parseText(text)
-        } catch (SAXParseException ex) {
-            throw new ConfigurationLoaderException("Project configuration file ${file} could not be loaded, see message(s) above.");
+            PreloadedConfigurationHeader header
+            try {
+                header = isXML ? ConfigurationHeaderScanner.scan(file) : ConfigurationHeaderScanner.scan(text)
+            } catch (XMLStreamException ex) {
+                logger.severe(ex.message)
+                throw new ConfigurationLoaderException("Project configuration file ${file} could not be loaded, see message(s) above.");
+            }
+            entry = cache.put(file, header, text)
         }
-        return _preloadConfiguration(file, text, xml, null)
+
+        String cachedText = entry.text
+        Closure<String> textLoader = cachedText != null ? { cachedText } : { loadAndPreprocessTextFromFile(file) }
+        return createPreloadedConfiguration(file, entry.header, null, textLoader)
     }
 
     /**
-     * Loads a basic / informational part of each available configurationNode file.
+     * Create the preloaded configuration for a header. The text and the XML node are loaded on request.
      * Recursive helper method.
-     * @param configurationNode
-     * @return
      */
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    private PreloadedConfiguration _preloadConfiguration(File file, String text, NodeChild configurationNode, PreloadedConfiguration parent) {
-        NodeChild.metaClass.extract = { String id, String defaultValue -> return extractAttributeText((NodeChild) delegate, id, defaultValue) }
+    private PreloadedConfiguration createPreloadedConfiguration(File file, PreloadedConfigurationHeader header, PreloadedConfiguration parent, Closure<String> textLoader) {
         List<PreloadedConfiguration> subConf = new LinkedList<PreloadedConfiguration>()
-        PreloadedConfiguration icc
+        ResourceSetSize setSize = header.usedResourcesSize ? ResourceSetSize.valueOf(header.usedResourcesSize) : null
+        PreloadedConfiguration icc = new PreloadedConfiguration(parent, ConfigurationType.valueOf(header.type), header.name, header.description,
+                header.className, header.imports, setSize, header.analyses, subConf, file, textLoader)
 
-        Configuration.ConfigurationType type = extractAttributeText(configurationNode, "configurationType", parent != null ? parent.type.name().toUpperCase() : Configuration.ConfigurationType.OTHER.name()).toUpperCase()
-        String cls = extractAttributeText(configurationNode, "class", Project.class.name)
-        String name = extractAttributeText(configurationNode, "name")
-        String description = extractAttributeText(configurationNode, "description")
-        String imports = extractAttributeText(configurationNode, "imports")
-
-        if (type == ConfigurationType.PROJECT) {
-            List<String> analyses = []
-
-            NodeChildren san = configurationNode.availableAnalyses
-            if (!Boolean.parseBoolean(extractAttributeText(configurationNode, XMLTAG_ATTRIBUTE_INHERITANALYSES, FALSE))) {
-                analyses = _loadPreloadedConfigurationAnalyses(san)
-            } else {
-                analyses = parent.getListOfAnalyses()
-            }
-            ResourceSetSize setSize = ResourceSetSize.valueOf(extractAttributeText(configurationNode, "usedresourcessize", "l"))
-            icc = new PreloadedConfiguration(parent, type, name, description, cls, configurationNode, imports, setSize, analyses, subConf, file, text)
-        } else {
-            icc = new PreloadedConfiguration(parent, type, name, description, cls, configurationNode, imports, subConf, file, text)
-        }
-
-        for (subConfiguration in configurationNode.subconfigurations.configuration) {
-            subConf << _preloadConfiguration(file, text, subConfiguration, icc)
+        for (PreloadedConfigurationHeader subHeader : header.subConfigurations) {
+            subConf << createPreloadedConfiguration(file, subHeader, icc, { icc.getText() } as Closure<String>)
         }
-
         return icc
     }
 
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    private List<String> _loadPreloadedConfigurationAnalyses(NodeChildren analyses) {
-        List<String> listOfanalyses = []
-        for (analysis in analyses.analysis) {
-            String id = analysis.@id.text()
-            String configuration = analysis.@configuration.text()
-            String useplugin = extractAttributeText(analysis, "useplugin", "")
-            String killswitches = extractAttributeText(analysis, "killswitches", "")
-            String idStr = "${id}::${configuration}::useplugin=${useplugin}::killswitches=${killswitches}".toString()
-
-            listOfanalyses << idStr
-        }
-        return listOfanalyses
+    Configuration getConfiguration(String usedConfiguration) {
+        return loadConfiguration(getPreloadedConfiguration(usedConfiguration))
     }
 
-    Configuration getConfiguration(String usedConfiguration) {
+    private PreloadedConfiguration getPreloadedConfiguration(String usedConfiguration) {
         PreloadedConfiguration icc = availableConfigurations[usedConfiguration]
 
         if (icc == null) {
@@ -361,8 +347,30 @@ class ConfigurationFactory {
                     + convertMapToFormattedTable(availableConfigurations, 1, " : ", { PreloadedConfiguration v -> v.file }).join("\n")
             )
         }
+        return icc
+    }
 
-        return loadConfiguration(icc)
+    /**
+     * Get an imported or parent configuration. Configurations below the project level are loaded once and then
+     * shared by all configurations, which import them, so diamond-shaped import graphs are only read once. They are
+     * loaded again, if their source file changed.
+     *
+     * Projects (and variants) are always loaded anew, because their analysis configurations are modified when
+     * they are lazily loaded. The same is true for all configurations requested with getConfiguration().
+     */
+    private Configuration getSharedConfiguration(PreloadedConfiguration icc) {
+        if (icc.type >= ConfigurationType.PROJECT)
+            return loadConfiguration(icc)
+
+        String fingerprint = icc.file ? "${icc.file.absolutePath}:${icc.file.length()}:${icc.file.lastModified()}".toString() : ""
+        synchronized (sharedConfigurations) {
+            Tuple2<String, Configuration> entry = sharedConfigurations[icc.id]
+            if (entry == null || entry.x != fingerprint || !entry.y.preloadedConfiguration.is(icc)) {
+                entry = new Tuple2<String, Configuration>(fingerprint, loadConfiguration(icc))
+                sharedConfigurations[icc.id] = entry
+            }
+            return entry.y
+        }
     }
 
     /**
@@ -396,7 +404,7 @@ class ConfigurationFactory {
 
         for (String ic in config.getImportConfigurations()) {
             try {
-                Configuration cfg = getConfiguration(ic)
+                Configuration cfg = getSharedConfiguration(getPreloadedConfiguration(ic))
                 config.addParent(cfg)
             } catch (Exception ex) {
                 if (LibrariesFactory.getInstance().areLibrariesLoaded())
@@ -412,7 +420,7 @@ class ConfigurationFactory {
      * The reverse walk ist possible as the information about dependencies is stored in the PreloadedConfiguration objects which are created on startup.
      */
     private Configuration _loadConfiguration(PreloadedConfiguration icc) {
-        Configuration parentConfig = icc.parent != null ? loadConfiguration(icc.parent) : null
+        Configuration parentConfig = icc.parent != null ? getSharedConfiguration(icc.parent) : null
         NodeChild configurationNode = icc.configurationNode
         Configuration config = null
 
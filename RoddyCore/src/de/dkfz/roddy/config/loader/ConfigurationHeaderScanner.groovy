@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config.loader
+
+import de.dkfz.roddy.config.Configuration.ConfigurationType
+import de.dkfz.roddy.config.ResourceSetSize
+import de.dkfz.roddy.core.Project
+import groovy.transform.CompileStatic
+
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamException
+import javax.xml.stream.XMLStreamReader
+
+/**
+ * Reads the header of a configuration file with a streaming parser. Only the attributes of the configuration
+ * elements, the available analyses and the subconfigurations are extracted. No DOM is built, the remaining content
+ * is skipped.
+ */
+@CompileStatic
+class ConfigurationHeaderScanner {
+
+    private static final XMLInputFactory factory = XMLInputFactory.newInstance()
+
+    static PreloadedConfigurationHeader scan(File file) throws XMLStreamException {
+        return file.withReader { Reader reader -> scan(reader) }
+    }
+
+    static PreloadedConfigurationHeader scan(String text) throws XMLStreamException {
+        return scan(new StringReader(text))
+    }
+
+    static PreloadedConfigurationHeader scan(Reader reader) throws XMLStreamException {
+        XMLStreamReader xml = factory.createXMLStreamReader(reader)
+        try {
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT)
+                    return readConfiguration(xml, null)
+            }
+            throw new XMLStreamException("The document does not contain a configuration element")
+        } finally {
+            xml.close()
+        }
+    }
+
+    /**
+     * Read the configuration element, the reader is positioned on. Returns after its end element.
+     */
+    private static PreloadedConfigurationHeader readConfiguration(XMLStreamReader xml, PreloadedConfigurationHeader parent) {
+        PreloadedConfigurationHeader header = new PreloadedConfigurationHeader()
+        ConfigurationType type = ConfigurationType.valueOf(attribute(xml, "configurationType", parent != null ? parent.type : ConfigurationType.OTHER.name()).toUpperCase())
+        header.type = type.name()
+        header.className = attribute(xml, "class", Project.class.name)
+        header.name = attribute(xml, "name")
+        header.description = attribute(xml, "description")
+        header.imports = attribute(xml, "imports")
+
+        boolean readAnalyses = false
+        if (type == ConfigurationType.PROJECT) {
+            if (Boolean.parseBoolean(attribute(xml, ConfigurationFactory.XMLTAG_ATTRIBUTE_INHERITANALYSES, "false"))) {
+                header.analyses = new LinkedList<String>(parent.analyses)
+            } else {
+                header.analyses = []
+                readAnalyses = true
+            }
+            header.usedResourcesSize = ResourceSetSize.valueOf(attribute(xml, "usedresourcessize", "l")).name()
+        }
+
+        forEachChild(xml) {
+            if (xml.localName == "availableAnalyses" && readAnalyses) {
+                forEachChild(xml) {
+                    if (xml.localName == "analysis")
+                        header.analyses << readAnalysis(xml)
+                    skipElement(xml)
+                }
+            } else if (xml.localName == "subconfigurations") {
+                forEachChild(xml) {
+                    if (xml.localName == "configuration")
+                        header.subConfigurations << readConfiguration(xml, header)
+                    else
+                        skipElement(xml)
+                }
+            } else {
+                skipElement(xml)
+            }
+        }
+        return header
+    }
+
+    private static String readAnalysis(XMLStreamReader xml) {
+        String id = attribute(xml, "id")
+        String configuration = attribute(xml, "configuration")
+        String useplugin = attribute(xml, "useplugin")
+        String killswitches = attribute(xml, "killswitches")
+        return "${id}::${configuration}::useplugin=${useplugin}::killswitches=${killswitches}".toString()
+    }
+
+    private static String attribute(XMLStreamReader xml, String name, String defaultText = "") {
+        String value = xml.getAttributeValue(null, name)
+        return value != null ? value : defaultText
+    }
+
+    /**
+     * Call the closure for each child element of the current element. The closure must leave the reader after the
+     * end element of the child. Returns after the end element of the current element.
+     */
+    private static void forEachChild(XMLStreamReader xml, Closure closure) {
+        while (xml.hasNext()) {
+            int event = xml.next()
+            if (event == XMLStreamConstants.START_ELEMENT)
+                closure.call()
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                return
+        }
+    }
+
+    /**
+     * Skip the current element including all of its children.
+     */
+    private static void skipElement(XMLStreamReader xml) {
+        int depth = 1
+        while (depth > 0 && xml.hasNext()) {
+            int event = xml.next()
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config.loader
+
+import de.dkfz.roddy.Constants
+import de.dkfz.roddy.Roddy
+import de.dkfz.roddy.core.Initializable
+import de.dkfz.roddy.tools.LoggerWrapper
+import de.dkfz.roddy.tools.PersistentCaches
+import de.dkfz.roddy.tools.RoddyConversionHelperMethods
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Cache for the headers of configuration files. A header is reused as long as the size and the modification time of
+ * the file did not change. For files, which need to be converted to XML first (Bash and YAML configurations), the
+ * converted text is stored as well. Recently modified files are not cached, see PersistentCaches.isSettled().
+ *
+ * If the application property persistPreloadedConfigurations is set, the cache is loaded from and stored to the
+ * Roddy settings directory. Otherwise it only lives as long as the process.
+ */
+@CompileStatic
+class PreloadedConfigurationCache extends Initializable {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(PreloadedConfigurationCache)
+
+    public static final String CACHE_FILENAME = "preloadedConfigurations.bin"
+
+    /**
+     * Written to the cache file. A cache written with another format or Roddy version is discarded.
+     */
+    private static final String FORMAT = "1:" + Constants.APP_CURRENT_VERSION_STRING
+
+    static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L
+
+        final long size
+        final long lastModified
+        final PreloadedConfigurationHeader header
+        /**
+         * The converted text for non-XML files or null
+         */
+        final String text
+
+        Entry(long size, long lastModified, PreloadedConfigurationHeader header, String text) {
+            this.size = size
+            this.lastModified = lastModified
+            this.header = header
+            this.text = text
+        }
+    }
+
+    private static PreloadedConfigurationCache instance
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>()
+
+    private final File cacheFile
+
+    private volatile boolean modified = false
+
+    static synchronized PreloadedConfigurationCache getInstance() {
+        if (instance == null) {
+            instance = new PreloadedConfigurationCache(isPersistent() ? new File(Roddy.getSettingsDirectory(), CACHE_FILENAME) : null)
+            instance.initialize()
+        }
+        return instance
+    }
+
+    private static boolean isPersistent() {
+        return RoddyConversionHelperMethods.toBoolean(
+                Roddy.applicationConfiguration.getOrSetApplicationProperty(Constants.APP_PROPERTY_PERSIST_PRELOADED_CONFIGURATIONS, "false"),
+                false)
+    }
+
+    /**
+     * @param cacheFile The file to persist the headers to or null
+     */
+    PreloadedConfigurationCache(File cacheFile) {
+        this.cacheFile = cacheFile
+    }
+
+    @Override
+    boolean initialize() {
+        if (cacheFile == null || !cacheFile.exists())
+            return true
+        try {
+            cacheFile.withObjectInputStream(getClass().classLoader) { ObjectInputStream stream ->
+                if (stream.readObject() == FORMAT)
+                    entries.putAll((Map<String, Entry>) stream.readObject())
+            }
+        } catch (Exception ex) {
+            logger.warning("Could not read the configuration cache ${cacheFile}: ${ex.message}")
+            entries.clear()
+        }
+        return true
+    }
+
+    @Override
+    void destroy() {
+        if (cacheFile == null || !modified)
+            return
+        try {
+            // Drop the entries of files, which were removed in the meantime.
+            Map<String, Entry> existingEntries = new HashMap<>(entries.findAll { String path, Entry entry -> new File(path).exists() })
+            PersistentCaches.writeObjects(cacheFile, [FORMAT, existingEntries] as List<Object>)
+            modified = false
+        } catch (Exception ex) {
+            logger.warning("Could not write the configuration cache ${cacheFile}: ${ex.message}")
+        }
+    }
+
+    /**
+     * @return The cached entry or null, if the file is unknown or if it changed
+     */
+    Entry get(File file) {
+        Entry entry = entries[file.absolutePath]
+        if (entry != null && entry.size == file.length() && entry.lastModified == file.lastModified())
+            return entry
+        return null
+    }
+
+    /**
+     * @return The new entry. It is only stored, if the file was not modified recently.
+     */
+    Entry put(File file, PreloadedConfigurationHeader header, String text) {
+        long lastModified = file.lastModified()
+        Entry entry = new Entry(file.length(), lastModified, header, text)
+        if (PersistentCaches.isSettled(lastModified)) {
+            entries[file.absolutePath] = entry
+            modified = true
+        }
+        return entry
+    }
+
+    int size() {
+        return entries.size()
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config.loader
+
+import groovy.transform.CompileStatic
+
+/**
+ * The header attributes of a configuration and its subconfigurations, i.e. everything ConfigurationFactory needs to
+ * create the PreloadedConfiguration objects without the XML content of the file.
+ *
+ * Headers are stored in the PreloadedConfigurationCache, so they only contain plain values.
+ */
+@CompileStatic
+class PreloadedConfigurationHeader implements Serializable {
+
+    private static final long serialVersionUID = 1L
+
+    String type
+    String name
+    String description
+    String className
+    String imports
+    /**
+     * Only set for projects.
+     */
+    String usedResourcesSize
+    /**
+     * Only set for projects. The entries look like id::configuration::useplugin=...::killswitches=...
+     */
+    List<String> analyses
+    List<PreloadedConfigurationHeader> subConfigurations = []
+}
@@ -18,9 +18,17 @@ import de.dkfz.roddy.execution.jobs.BEJob
 import de.dkfz.roddy.execution.jobs.Job
 import de.dkfz.roddy.execution.jobs.JobState
 import de.dkfz.roddy.tools.LoggerWrapper
+import de.dkfz.roddy.tools.RoddyConversionHelperMethods
 import groovy.transform.CompileStatic
 import org.apache.commons.io.filefilter.WildcardFileFilter
 
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.ThreadFactory
+
 import static de.dkfz.roddy.config.ConfigurationIssue.ConfigurationIssueTemplate
 import static de.dkfz.roddy.tools.RoddyIOHelperMethods.getStackTraceAsString
 
@@ -111,7 +119,7 @@ class Analysis {
      * Alternatively, you could use the RoddyTestSpec class as a base for Spock tests.
      * @return
      */
-    AnalysisConfiguration getConfiguration() {
+    synchronized AnalysisConfiguration getConfiguration() {
         if (_analysisConfiguration == null) {
             _analysisConfiguration = new ContextConfiguration((AnalysisConfiguration) this.configuration,
                                                               (ProjectConfiguration) this.project.configuration)
@@ -192,24 +200,25 @@ class Analysis {
      */
     List<ExecutionContext> run(List<String> pidFilters, ExecutionContextLevel level, boolean preventLoggingOnQueryStatus) {
         List<DataSet> selectedDatasets = getRuntimeService().loadDatasetsWithFilter(this, pidFilters)
-        List<ExecutionContext> runs = new LinkedList<>()
 
         long creationCheckPoint = System.nanoTime()
 
-        for (DataSet ds : selectedDatasets) {
-            if (level.allowedToSubmitJobs && !canStartJobs(ds)) {
-                logger.postAlwaysInfo("The ${Constants.DATASET_HR} ${ds.id} is still running and will be skipped for the process.")
-                continue
-            }
+        List<Closure<ExecutionContext>> runs = selectedDatasets.collect { DataSet ds ->
+            return {
+                if (level.allowedToSubmitJobs && !canStartJobs(ds)) {
+                    logger.postAlwaysInfo("The ${Constants.DATASET_HR} ${ds.id} is still running and will be skipped for the process.")
+                    return (ExecutionContext) null
+                }
 
-            ExecutionContext context =
-                    new ExecutionContext(FileSystemAccessProvider.instance.callWhoAmI(), this, ds, level,
-                            ds.getOutputFolderForAnalysis(this), ds.getInputFolderForAnalysis(this), null, creationCheckPoint)
+                ExecutionContext context =
+                        new ExecutionContext(FileSystemAccessProvider.instance.callWhoAmI(), this, ds, level,
+                                ds.getOutputFolderForAnalysis(this), ds.getInputFolderForAnalysis(this), null, creationCheckPoint)
 
-            executeRun(context, preventLoggingOnQueryStatus)
-            runs.add(context)
+                executeRun(context, preventLoggingOnQueryStatus)
+                return context
+            } as Closure<ExecutionContext>
         }
-        return runs
+        return executeDataSetRuns(runs)
     }
 
     /**
@@ -221,43 +230,110 @@ class Analysis {
      */
     List<ExecutionContext> rerun(List<ExecutionContext> contexts, boolean test) {
         long creationCheckPoint = System.nanoTime()
-        LinkedList<ExecutionContext> newRunContexts = new LinkedList<>()
-        for (ExecutionContext oldContext : contexts) {
-            DataSet ds = oldContext.dataSet
-
-            if (Roddy.getFeatureToggleValue(FeatureToggles.FailOnErroneousDryRuns) && oldContext.hasErrors()) {
-                // Why print out here? Because the oldContext was started with suppressed messages (Default for QUERY_STATUS).
-                // As there are errors, we'll print them here, otherwise we won't see them.
-                printErrorsAndWarnings(oldContext)
-                newRunContexts.add(oldContext)
-                logger.postAlwaysInfo("\nYour tried to start an analysis using rerun or testrerun.\n" +
-                        " This is a two step process, where the first step is used to gather information about previous runs." +
-                        " However, this first step failed and Roddy will not continue.\n" +
-                        " You can use the feature toggle 'FailOnErroneousDryRuns=false' to disable this behaviour.\n" +
-                        " You can add it to the feature toggle file in ~/.roddy/featureToggles.ini")
-                continue
-            }
+        List<Closure<ExecutionContext>> runs = contexts.collect { ExecutionContext oldContext ->
+            return {
+                rerunDataSet(oldContext, test, creationCheckPoint)
+            } as Closure<ExecutionContext>
+        }
+        return executeDataSetRuns(runs)
+    }
+
+    private ExecutionContext rerunDataSet(ExecutionContext oldContext, boolean test, long creationCheckPoint) {
+        DataSet ds = oldContext.dataSet
+
+        if (Roddy.getFeatureToggleValue(FeatureToggles.FailOnErroneousDryRuns) && oldContext.hasErrors()) {
+            // Why print out here? Because the oldContext was started with suppressed messages (Default for QUERY_STATUS).
+            // As there are errors, we'll print them here, otherwise we won't see them.
+            printErrorsAndWarnings(oldContext)
+            logger.postAlwaysInfo("\nYour tried to start an analysis using rerun or testrerun.\n" +
+                    " This is a two step process, where the first step is used to gather information about previous runs." +
+                    " However, this first step failed and Roddy will not continue.\n" +
+                    " You can use the feature toggle 'FailOnErroneousDryRuns=false' to disable this behaviour.\n" +
+                    " You can add it to the feature toggle file in ~/.roddy/featureToggles.ini")
+            return oldContext
+        }
 
-            if (!test && !canStartJobs(ds)) {
-                logger.postAlwaysInfo("The ${Constants.DATASET_HR} ${ds.id} is still running and will be skipped for the process.")
-                continue
+        if (!test && !canStartJobs(ds)) {
+            logger.postAlwaysInfo("The ${Constants.DATASET_HR} ${ds.id} is still running and will be skipped for the process.")
+            return null
+        }
+
+        ExecutionContext context =
+                new ExecutionContext(FileSystemAccessProvider.instance.callWhoAmI(),
+                                     this,
+                                     oldContext.dataSet,
+                                     test ? ExecutionContextLevel.TESTRERUN : ExecutionContextLevel.RERUN,
+                                     oldContext.outputDirectory,
+                                     oldContext.inputDirectory,
+                                     null,
+                                     creationCheckPoint)
+
+        context.addFiles(oldContext.getAllFilesInRun())
+        executeRun(context)
+        return context
+    }
+
+    /**
+     * The number of datasets, which are processed concurrently by run() and rerun(). Set it with the startup option
+     * --paralleldatasets or the application property parallelDataSets. The default 1 processes one dataset after the
+     * other.
+     */
+    static int getMaxParallelDataSets() {
+        String value = Roddy.isOptionSet(RoddyStartupOptions.paralleldatasets) ?
+                Roddy.getCommandLineCall().getOptionValue(RoddyStartupOptions.paralleldatasets) :
+                Roddy.applicationConfiguration.getOrSetApplicationProperty(Constants.APP_PROPERTY_PARALLEL_DATASETS, "1")
+        return Math.max(1, RoddyConversionHelperMethods.toInt(value, 1))
+    }
+
+    /**
+     * Execute the runs for the datasets, concurrently if configured. Each run returns its context or null, if the
+     * dataset was skipped.
+     *
+     * Each context writes its execution directories and other context specific values to its own configuration layer,
+     * see ExecutionContext.getConfiguration(). The output of a dataset is buffered and written as one block, when the
+     * dataset is finished.
+     *
+     * @return The contexts in the order of the runs
+     */
+    protected List<ExecutionContext> executeDataSetRuns(List<Closure<ExecutionContext>> runs) {
+        int threads = Math.min(getMaxParallelDataSets(), runs.size())
+        List<ExecutionContext> contexts = new LinkedList<>()
+        if (threads <= 1) {
+            for (Closure<ExecutionContext> run : runs) {
+                ExecutionContext context = run.call()
+                if (context != null)
+                    contexts.add(context)
             }
+            return contexts
+        }
 
-            ExecutionContext context =
-                    new ExecutionContext(FileSystemAccessProvider.instance.callWhoAmI(),
-                                         this,
-                                         oldContext.dataSet,
-                                         test ? ExecutionContextLevel.TESTRERUN : ExecutionContextLevel.RERUN,
-                                         oldContext.outputDirectory,
-                                         oldContext.inputDirectory,
-                                         null,
-                                         creationCheckPoint)
-
-            context.allFilesInRun.addAll(oldContext.allFilesInRun)
-            executeRun(context)
-            newRunContexts.add(context)
+        logger.postAlwaysInfo("Processing ${runs.size()} ${Constants.DATASET_HR}s with ${threads} parallel threads.")
+        DataSetOutputBuffer outputBuffer = new DataSetOutputBuffer()
+        ExecutorService executor = Executors.newFixedThreadPool(threads, { Runnable runnable ->
+            Thread thread = new Thread(runnable, "Roddy dataset run")
+            thread.setDaemon(true)
+            return thread
+        } as ThreadFactory)
+        outputBuffer.install()
+        try {
+            List<Future<ExecutionContext>> futures = runs.collect { Closure<ExecutionContext> run ->
+                executor.submit({ outputBuffer.buffer(run) } as Callable<ExecutionContext>)
+            }
+            for (Future<ExecutionContext> future : futures) {
+                ExecutionContext context
+                try {
+                    context = future.get()
+                } catch (ExecutionException ex) {
+                    throw ex.cause instanceof RuntimeException ? (RuntimeException) ex.cause : new RuntimeException(ex.cause)
+                }
+                if (context != null)
+                    contexts.add(context)
+            }
+        } finally {
+            executor.shutdown()
+            outputBuffer.uninstall()
         }
-        return newRunContexts
+        return contexts
     }
 
     private boolean canStartJobs(DataSet ds) {
@@ -349,7 +425,7 @@ class Analysis {
                                                         oldContext.inputDirectory,
                                                         null,
                                                         creationCheckPoint)
-        context.allFilesInRun.addAll(oldContext.allFilesInRun)
+        context.addFiles(oldContext.getAllFilesInRun())
         runDeferredContext(context)
         return context
     }
@@ -490,14 +566,17 @@ class Analysis {
                     // Finally, if execution is allowed, run it and start the submitted jobs (if hold jobs is enabled)
                     if (execute) {
                         successfullyExecuted = context.execute()
+                        context.jobStateJournal.flush()
                         if (successfullyExecuted)
-                            finallyStartJobsOfContext(context)
+                            successfullyExecuted = finallyStartJobsOfContext(context)
                     }
                 } catch (Exception ex) {
                     successfullyExecuted = false
                     maybeAbortStartedJobsOfContext(context)
                     throw ex
                 } finally {
+                    flushJobStateJournalSafely(context)
+                    writeStagedParameterFilesSafely(context)
 
                     if (context.executionContextLevel == ExecutionContextLevel.QUERY_STATUS) { // Clean up
                         // Query file validity of all files
@@ -578,13 +657,45 @@ class Analysis {
             logger.sometimes(messages.toString())
     }
 
+    /**
+     * Flush the job state journal in a finally block. Failures are only logged, so that they do not hide an exception
+     * of the run or prevent the clean up.
+     */
+    private void flushJobStateJournalSafely(ExecutionContext context) {
+        try {
+            if (!context.jobStateJournal.flush())
+                logger.severe("Not all lines could be appended to the job state logfile for dataset ${context.dataSet.id}.")
+        } catch (Exception ex) {
+            logger.severe("Could not write the job state logfile for dataset ${context.dataSet.id}: ${ex.message}")
+        }
+    }
+
+    /**
+     * Write the remaining parameter files in a finally block. Like flushJobStateJournalSafely, failures are only logged.
+     */
+    private void writeStagedParameterFilesSafely(ExecutionContext context) {
+        try {
+            if (!context.writeStagedParameterFiles())
+                logger.severe("Not all parameter files could be written for dataset ${context.dataSet.id}.")
+        } catch (Exception ex) {
+            logger.severe("Could not write the parameter files for dataset ${context.dataSet.id}: ${ex.message}")
+        }
+    }
+
     /**
      * Will start all the jobs in the context.
      *
      * @param context
+     * @return false, if the jobs were not started, because their parameter files could not be written
      */
-    private void finallyStartJobsOfContext(ExecutionContext context) throws BEException {
+    private boolean finallyStartJobsOfContext(ExecutionContext context) throws BEException {
+        // The jobs need their parameter files as soon as they start. Without them, the jobs stay on hold.
+        if (!context.writeStagedParameterFiles()) {
+            logger.severe("The held jobs of dataset ${context.dataSet.id} are not started, because not all parameter files could be written.")
+            return false
+        }
         Roddy.getJobManager().startHeldJobs(context.getExecutedJobs() as List<BEJob>)
+        return true
     }
 
     /**
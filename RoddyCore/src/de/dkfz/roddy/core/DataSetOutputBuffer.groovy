@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.core
+
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.logging.Handler
+import java.util.logging.LogRecord
+import java.util.logging.Logger
+
+/**
+ * Buffers the console output of datasets, which are processed in parallel. The output of a dataset is written as one
+ * block, when the dataset is finished, so the messages of different datasets are not mixed.
+ *
+ * The buffer covers the standard output and error streams and the handlers of the root logger, which receive the
+ * messages of the LoggerWrapper objects. Output of threads, which do not buffer, is passed through directly.
+ */
+@CompileStatic
+class DataSetOutputBuffer {
+
+    /**
+     * Keeps the blocks of different datasets apart, if they are written at the same time.
+     */
+    private static final Object writeLock = new Object()
+
+    /**
+     * The buffered output of each buffering thread. Each entry writes a piece of output to its original target.
+     */
+    private final Map<Thread, List<Runnable>> buffers = new ConcurrentHashMap<Thread, List<Runnable>>()
+
+    private PrintStream originalOut
+    private PrintStream originalErr
+    private final Map<Handler, Handler> replacedHandlers = new LinkedHashMap<Handler, Handler>()
+
+    /**
+     * Routes the standard streams and the root logger handlers through this buffer.
+     */
+    synchronized void install() {
+        originalOut = System.out
+        originalErr = System.err
+        System.setOut(new PrintStream(new BufferingOutputStream(originalOut, buffers), true))
+        System.setErr(new PrintStream(new BufferingOutputStream(originalErr, buffers), true))
+
+        Logger rootLogger = Logger.getLogger("")
+        for (Handler handler : rootLogger.getHandlers()) {
+            Handler bufferingHandler = new BufferingHandler(handler, buffers)
+            replacedHandlers[bufferingHandler] = handler
+            rootLogger.removeHandler(handler)
+            rootLogger.addHandler(bufferingHandler)
+        }
+    }
+
+    /**
+     * Restores the standard streams and the root logger handlers.
+     */
+    synchronized void uninstall() {
+        System.setOut(originalOut)
+        System.setErr(originalErr)
+
+        Logger rootLogger = Logger.getLogger("")
+        replacedHandlers.each { Handler bufferingHandler, Handler handler ->
+            rootLogger.removeHandler(bufferingHandler)
+            rootLogger.addHandler(handler)
+        }
+        replacedHandlers.clear()
+    }
+
+    /**
+     * Runs the closure and buffers the output of the current thread, until the closure is finished.
+     */
+    public <T> T buffer(Closure<T> closure) {
+        buffers[Thread.currentThread()] = new LinkedList<Runnable>()
+        try {
+            return closure.call()
+        } finally {
+            List<Runnable> output = buffers.remove(Thread.currentThread())
+            synchronized (writeLock) {
+                for (Runnable write : output)
+                    write.run()
+            }
+        }
+    }
+
+    private static class BufferingOutputStream extends OutputStream {
+        private final PrintStream target
+        private final Map<Thread, List<Runnable>> buffers
+
+        BufferingOutputStream(PrintStream target, Map<Thread, List<Runnable>> buffers) {
+            this.target = target
+            this.buffers = buffers
+        }
+
+        @Override
+        void write(int b) {
+            write([(byte) b] as byte[], 0, 1)
+        }
+
+        @Override
+        void write(byte[] b, int off, int len) {
+            List<Runnable> output = buffers.get(Thread.currentThread())
+            if (output == null) {
+                target.write(b, off, len)
+                return
+            }
+            byte[] copy = Arrays.copyOfRange(b, off, off + len)
+            output << ({ target.write(copy, 0, copy.length); target.flush() } as Runnable)
+        }
+
+        @Override
+        void flush() {
+            if (!buffers.containsKey(Thread.currentThread()))
+                target.flush()
+        }
+    }
+
+    private static class BufferingHandler extends Handler {
+        private final Handler target
+        private final Map<Thread, List<Runnable>> buffers
+
+        BufferingHandler(Handler target, Map<Thread, List<Runnable>> buffers) {
+            this.target = target
+            this.buffers = buffers
+        }
+
+        @Override
+        void publish(LogRecord record) {
+            List<Runnable> output = buffers.get(Thread.currentThread())
+            if (output == null) {
+                target.publish(record)
+                return
+            }
+            output << ({ target.publish(record); target.flush() } as Runnable)
+        }
+
+        @Override
+        void flush() {
+            target.flush()
+        }
+
+        @Override
+        void close() throws SecurityException {
+            target.close()
+        }
+    }
+}
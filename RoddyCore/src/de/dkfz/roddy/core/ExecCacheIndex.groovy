@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.core
+
+import groovy.transform.CompileStatic
+
+import java.util.function.Function
+import java.util.stream.Collectors
+
+/**
+ * Index of the execution cache file of a project (.roddyExecCache.txt). The lines of the file look like
+ *
+ *   executionDirectory,analysisID,user
+ *
+ * The file is only appended to. The index remembers the byte offset up to which the file was parsed, so an update
+ * only reads the lines added since. The entries are grouped by their dataset id.
+ */
+@CompileStatic
+class ExecCacheIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L
+
+    /**
+     * The number of characters per chunk, which is parsed by one thread.
+     */
+    static final int PARSE_CHUNK_SIZE = 1024 * 1024
+
+    static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L
+
+        final String path
+        final String analysisID
+        /**
+         * The user who started the run or null for old entries
+         */
+        final String user
+
+        Entry(String path, String analysisID, String user) {
+            this.path = path
+            this.analysisID = analysisID
+            this.user = user
+        }
+    }
+
+    /**
+     * The path pattern, which was used to extract the dataset ids. The index has to be rebuilt, if it changes.
+     */
+    final String dataSetPattern
+
+    private long parsedLength = 0
+
+    /**
+     * The last parsed line and its offset. If the line is not found at the offset anymore, the file was replaced.
+     */
+    private long lastLineOffset = 0
+
+    private String lastLine = null
+
+    private final Map<String, List<Entry>> entriesByDataSetID = new LinkedHashMap<>()
+
+    ExecCacheIndex(String dataSetPattern) {
+        this.dataSetPattern = dataSetPattern
+    }
+
+    /**
+     * Read the lines, which were added to the cache file since the last update.
+     *
+     * @param readFrom Returns the text of the cache file starting at the given byte offset or null, if the file
+     *                 cannot be read
+     * @param dataSetIDOfPath Returns the dataset id for an execution directory
+     */
+    synchronized void update(Closure<String> readFrom, Closure<String> dataSetIDOfPath) {
+        if (lastLine == null) {
+            clear()
+            parse(readFrom(0L), 0, dataSetIDOfPath)
+            return
+        }
+
+        String text = readFrom(lastLineOffset)
+        int endOfLastLine = text != null ? text.indexOf("\n") : -1
+        if (endOfLastLine < 0 || text.substring(0, endOfLastLine) != lastLine) {
+            // The file was replaced or truncated, read it again.
+            clear()
+            parse(readFrom(0L), 0, dataSetIDOfPath)
+        } else {
+            parse(text.substring(endOfLastLine + 1), parsedLength, dataSetIDOfPath)
+        }
+    }
+
+    /**
+     * Parse the complete lines of the text. An incomplete last line is parsed with the next update. Large texts are
+     * split into chunks at line ends, which are parsed in parallel into separate maps and merged in their order.
+     */
+    private void parse(String text, long offset, Closure<String> dataSetIDOfPath) {
+        if (text == null)
+            return
+        int end = text.lastIndexOf("\n")
+        if (end < 0)
+            return
+
+        List<Integer> chunkStarts = [0]
+        for (int position = PARSE_CHUNK_SIZE; position <= end; position += PARSE_CHUNK_SIZE) {
+            int chunkStart = text.indexOf("\n", Math.max(position, chunkStarts.last())) + 1
+            if (chunkStart <= 0 || chunkStart > end) break
+            if (chunkStart > chunkStarts.last())
+                chunkStarts << chunkStart
+            position = chunkStart
+        }
+        chunkStarts << end + 1
+
+        List<Map<String, List<Entry>>> chunkResults = (0..<(chunkStarts.size() - 1)).toList().parallelStream().map({ Integer chunk ->
+            parseChunk(text, chunkStarts[chunk], chunkStarts[chunk + 1], dataSetIDOfPath)
+        } as Function<Integer, Map<String, List<Entry>>>).collect(Collectors.toList())
+
+        for (Map<String, List<Entry>> chunkResult : chunkResults) {
+            chunkResult.each { String dataSetID, List<Entry> entries -> getOrCreateEntries(dataSetID).addAll(entries) }
+        }
+
+        int lastLineStart = text.lastIndexOf("\n", end - 1) + 1
+        lastLine = text.substring(lastLineStart, end)
+        lastLineOffset = offset + utf8Length(text, 0, lastLineStart)
+        parsedLength = lastLineOffset + utf8Length(text, lastLineStart, end + 1)
+    }
+
+    /**
+     * Parse the lines between start and end. Does not modify the index, so chunks can be parsed concurrently.
+     */
+    private static Map<String, List<Entry>> parseChunk(String text, int start, int end, Closure<String> dataSetIDOfPath) {
+        Map<String, List<Entry>> entriesByDataSetID = new LinkedHashMap<>()
+        int position = start
+        while (position < end) {
+            int lineEnd = text.indexOf("\n", position)
+            String line = text.substring(position, lineEnd)
+            position = lineEnd + 1
+
+            if (line == "") continue
+            String[] info = line.split(",")
+            if (info.length < 2) continue
+            String dataSetID = dataSetIDOfPath(new File(info[0]))
+            List<Entry> entries = entriesByDataSetID[dataSetID]
+            if (entries == null) {
+                entries = []
+                entriesByDataSetID[dataSetID] = entries
+            }
+            entries << new Entry(info[0], info[1], info.length > 2 ? info[2] : null)
+        }
+        return entriesByDataSetID
+    }
+
+    private List<Entry> getOrCreateEntries(String dataSetID) {
+        List<Entry> entries = entriesByDataSetID[dataSetID]
+        if (entries == null) {
+            entries = []
+            entriesByDataSetID[dataSetID] = entries
+        }
+        return entries
+    }
+
+    /**
+     * The number of bytes of the UTF-8 encoded characters between start and end.
+     */
+    private static long utf8Length(String text, int start, int end) {
+        long length = 0
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i)
+            if (c < (char) 0x80) {
+                length += 1
+            } else if (c < (char) 0x800) {
+                length += 2
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4
+                i++
+            } else {
+                length += 3
+            }
+        }
+        return length
+    }
+
+    private void clear() {
+        entriesByDataSetID.clear()
+        parsedLength = 0
+        lastLineOffset = 0
+        lastLine = null
+    }
+
+    synchronized long getParsedLength() {
+        return parsedLength
+    }
+
+    /**
+     * @return The entries of the dataset in the order of the cache file
+     */
+    synchronized List<Entry> getEntries(String dataSetID) {
+        List<Entry> entries = entriesByDataSetID[dataSetID]
+        return entries != null ? new ArrayList<Entry>(entries) : new ArrayList<Entry>()
+    }
+
+    synchronized Map<String, List<Entry>> getEntriesByDataSetID() {
+        Map<String, List<Entry>> copy = new LinkedHashMap<>()
+        entriesByDataSetID.each { String id, List<Entry> entries -> copy[id] = new ArrayList<Entry>(entries) }
+        return copy
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.core
+
+import de.dkfz.roddy.Constants
+import de.dkfz.roddy.Roddy
+import de.dkfz.roddy.tools.LoggerWrapper
+import de.dkfz.roddy.tools.PersistentCaches
+import de.dkfz.roddy.tools.RoddyConversionHelperMethods
+import groovy.transform.CompileStatic
+
+/**
+ * Keeps the ExecCacheIndex objects of the execution cache files by their path.
+ *
+ * If the application property persistExecCacheIndices is set, the indices are loaded from and stored to the Roddy
+ * settings directory. A status query then only reads the lines, which were appended to the cache file since the last
+ * invocation.
+ */
+@CompileStatic
+class ExecCacheIndexStore extends Initializable {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(ExecCacheIndexStore)
+
+    public static final String CACHE_FILENAME = "execCacheIndices.bin"
+
+    /**
+     * Written to the cache file. A cache written with another format or Roddy version is discarded.
+     */
+    private static final String FORMAT = "1:" + Constants.APP_CURRENT_VERSION_STRING
+
+    private static ExecCacheIndexStore instance
+
+    private final Map<String, ExecCacheIndex> indices = new HashMap<>()
+
+    private final File cacheFile
+
+    private volatile boolean modified = false
+
+    static synchronized ExecCacheIndexStore getInstance() {
+        if (instance == null) {
+            instance = new ExecCacheIndexStore(isPersistent() ? new File(Roddy.getSettingsDirectory(), CACHE_FILENAME) : null)
+            instance.initialize()
+        }
+        return instance
+    }
+
+    private static boolean isPersistent() {
+        return RoddyConversionHelperMethods.toBoolean(
+                Roddy.applicationConfiguration.getOrSetApplicationProperty(Constants.APP_PROPERTY_PERSIST_EXEC_CACHE_INDICES, "false"),
+                false)
+    }
+
+    /**
+     * @param cacheFile The file to persist the indices to or null
+     */
+    ExecCacheIndexStore(File cacheFile) {
+        this.cacheFile = cacheFile
+    }
+
+    @Override
+    boolean initialize() {
+        if (cacheFile == null || !cacheFile.exists())
+            return true
+        try {
+            cacheFile.withObjectInputStream(getClass().classLoader) { ObjectInputStream stream ->
+                if (stream.readObject() == FORMAT)
+                    indices.putAll((Map<String, ExecCacheIndex>) stream.readObject())
+            }
+        } catch (Exception ex) {
+            logger.warning("Could not read the execution cache indices ${cacheFile}: ${ex.message}")
+            indices.clear()
+        }
+        return true
+    }
+
+    @Override
+    synchronized void destroy() {
+        if (cacheFile == null || !modified)
+            return
+        try {
+            PersistentCaches.writeObjects(cacheFile, [FORMAT, new HashMap<String, ExecCacheIndex>(indices)] as List<Object>)
+            modified = false
+        } catch (Exception ex) {
+            logger.warning("Could not write the execution cache indices ${cacheFile}: ${ex.message}")
+        }
+    }
+
+    /**
+     * Get the index of an execution cache file. A new index is created, if the file is unknown or if the dataset ids
+     * were extracted with another pattern. The index still needs to be updated by the caller.
+     */
+    synchronized ExecCacheIndex getIndex(File execCacheFile, String dataSetPattern) {
+        String key = execCacheFile.absolutePath
+        ExecCacheIndex index = indices[key]
+        if (index == null || index.dataSetPattern != dataSetPattern) {
+            index = new ExecCacheIndex(dataSetPattern)
+            indices[key] = index
+        }
+        // The caller will update the index.
+        modified = true
+        return index
+    }
+
+    synchronized int size() {
+        return indices.size()
+    }
+}
@@ -12,6 +12,7 @@ import de.dkfz.roddy.Roddy
 import de.dkfz.roddy.config.Configuration
 import de.dkfz.roddy.config.ConfigurationConstants
 import de.dkfz.roddy.config.ConfigurationError
+import de.dkfz.roddy.config.ContextConfiguration
 import de.dkfz.roddy.config.RecursiveOverridableMapContainerForConfigurationValues
 import de.dkfz.roddy.config.ToolEntry
 import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
@@ -20,6 +21,7 @@ import de.dkfz.roddy.knowledge.files.BaseFile
 import de.dkfz.roddy.plugins.LibrariesFactory
 import de.dkfz.roddy.tools.LoggerWrapper
 
+import java.util.concurrent.ConcurrentHashMap
 import java.util.logging.Level
 
 /**
@@ -70,6 +72,15 @@ class ExecutionContext {
      * Keeps a list of all files which were created with this process.
      */
     protected final List<BaseFile> allFilesInRun = new LinkedList<BaseFile>().asSynchronized()
+    /**
+     * The files in allFilesInRun indexed by their absolute path. Several files may share a path, e.g. on rerun, where
+     * the files of the previous run are added first. The lists are replaced and never modified, so lookups need no lock.
+     */
+    private final Map<String, List<BaseFile>> filesByPath = new ConcurrentHashMap<String, List<BaseFile>>()
+    /**
+     * Files in allFilesInRun, which do not have a path yet. BaseFile reports the path with filePathChanged().
+     */
+    private final Set<BaseFile> filesWithoutPath = Collections.newSetFromMap(new IdentityHashMap<BaseFile, Boolean>())
     /**
      * Keeps a list of all (previously) started jobs which belong to this process.
      */
@@ -78,6 +89,14 @@ class ExecutionContext {
      * Stores a list of all calls which were passed to the job system within this context.
      */
     private final List<Command> commandCalls = new LinkedList<Command>().asSynchronized()
+    /**
+     * Buffers the job state logfile lines written during submission, see getJobStateJournal()
+     */
+    private JobStateJournal jobStateJournal = null
+    /**
+     * Parameter files of jobs submitted on hold, which are written together before the jobs are started
+     */
+    private final Map<File, String> stagedParameterFiles = new LinkedHashMap<File, String>()
     /**
      * This is some sort of synchronization checkpoint marker.
      * Contexts which were started with the same
@@ -99,6 +118,11 @@ class ExecutionContext {
      */
     private final List<ExecutionContextError> infos = ([] as List<ExecutionContextError>).asSynchronized()
 
+    /**
+     * The configuration layer of this context on top of the analysis configuration, see getConfiguration()
+     */
+    private Configuration contextConfiguration = null
+
     /**
      * The timestamp of this context object
      */
@@ -190,6 +214,7 @@ class ExecutionContext {
         this.analysis = p.analysis
         this.workflow = p.workflow
         this.dataSet = p.dataSet
+        this.contextConfiguration = p.getConfiguration()
         this.timestamp = p.timestamp
         this.inputDirectory = p.inputDirectory
         this.outputDirectory = p.outputDirectory
@@ -201,7 +226,7 @@ class ExecutionContext {
         this.executionContextSubLevel = p.executionContextSubLevel
         this.processingFlag = p.processingFlag
         this.executingUser = p.executingUser
-        this.allFilesInRun.addAll(p.getAllFilesInRun())
+        this.addFiles(p.getAllFilesInRun())
         this.jobsForProcess.addAll(p.jobsForProcess)
         this.commandCalls.addAll(p.commandCalls)
         this.errors.addAll(p.errors)
@@ -329,8 +354,20 @@ class ExecutionContext {
         return dataSet
     }
 
-    Configuration getConfiguration() {
-        return analysis.getConfiguration()
+    /**
+     * The configuration of this context. It is a layer on top of the analysis configuration and takes the values, which
+     * are only valid for this context, like the execution directories. So contexts of datasets, which are processed
+     * in parallel, do not overwrite each others values.
+     */
+    synchronized Configuration getConfiguration() {
+        if (contextConfiguration == null && analysis != null) {
+            Configuration analysisConfiguration = analysis.getConfiguration()
+            if (analysisConfiguration instanceof ContextConfiguration)
+                contextConfiguration = new ContextConfiguration((ContextConfiguration) analysisConfiguration)
+            else
+                contextConfiguration = new Configuration(null, analysisConfiguration)
+        }
+        return contextConfiguration
     }
 
     Configuration createJobConfiguration() {
@@ -487,10 +524,64 @@ class ExecutionContext {
                 || executionContextLevel == ExecutionContextLevel.RUN) {
             synchronized (allFilesInRun) {
                 this.allFilesInRun.add(file)
+                indexFile(file)
+            }
+        }
+    }
+
+    /**
+     * Add files regardless of the context level, e.g. the files of a previous run.
+     */
+    void addFiles(Collection<BaseFile> files) {
+        synchronized (allFilesInRun) {
+            for (BaseFile file : files) {
+                this.allFilesInRun.add(file)
+                indexFile(file)
             }
         }
     }
 
+    /**
+     * Called by BaseFile, if the path of a file changed. Keeps the path index of the files in this context up to date.
+     */
+    void filePathChanged(BaseFile file, File oldPath) {
+        synchronized (allFilesInRun) {
+            boolean isKnown = oldPath == null ? filesWithoutPath.remove(file) : unindexFile(file, oldPath.absolutePath)
+            if (isKnown)
+                indexFile(file)
+        }
+    }
+
+    private void indexFile(BaseFile file) {
+        if (file.path == null) {
+            filesWithoutPath.add(file)
+            return
+        }
+        String key = file.path.absolutePath
+        List<BaseFile> files = filesByPath[key]
+        filesByPath[key] = files ? files + [file] : [file]
+    }
+
+    private boolean unindexFile(BaseFile file, String key) {
+        List<BaseFile> files = filesByPath[key]
+        if (files == null || !files.any { BaseFile it -> it.is(file) })
+            return false
+        List<BaseFile> remaining = files.findAll { BaseFile it -> !it.is(file) }
+        if (remaining)
+            filesByPath[key] = remaining
+        else
+            filesByPath.remove(key)
+        return true
+    }
+
+    /**
+     * @return The first file in this context with the absolute path or null
+     */
+    BaseFile getFileByPath(String absolutePath) {
+        List<BaseFile> files = filesByPath[absolutePath]
+        return files ? files[0] : null
+    }
+
     List<BaseFile> getAllFilesInRun() {
         List<BaseFile> newList = new LinkedList<BaseFile>()
         synchronized (allFilesInRun) {
@@ -572,6 +663,61 @@ class ExecutionContext {
         return commandCalls
     }
 
+    /**
+     * Keep the parameter file of a job, which was submitted on hold. It is written with writeStagedParameterFiles.
+     */
+    void stageParameterFile(File file, String text) {
+        synchronized (stagedParameterFiles) {
+            stagedParameterFiles[file] = text
+        }
+    }
+
+    /**
+     * Write all staged parameter files with a single bulk operation. The files stay staged until they were written,
+     * so that a failed write can be repeated.
+     * @return false, if not all files could be written
+     */
+    boolean writeStagedParameterFiles() {
+        Map<File, String> textsByFile
+        synchronized (stagedParameterFiles) {
+            if (!stagedParameterFiles)
+                return true
+            textsByFile = new LinkedHashMap<File, String>(stagedParameterFiles)
+        }
+        boolean written = false
+        try {
+            written = FileSystemAccessProvider.instance.writeTextFiles(textsByFile, this)
+        } catch (Exception ex) {
+            logger.severe("Could not write the parameter files to ${executionDirectory}: ${ex.message}")
+        }
+        if (!written) {
+            addErrorEntry(ExecutionContextError.EXECUTION_PATH_NOTWRITABLE.expand("Not all of the ${textsByFile.size()} parameter files could be written to ${executionDirectory}"))
+            return false
+        }
+        synchronized (stagedParameterFiles) {
+            // Files staged again in the meantime are kept with their new text.
+            textsByFile.each { File file, String text ->
+                if (stagedParameterFiles[file].is(text))
+                    stagedParameterFiles.remove(file)
+            }
+        }
+        return true
+    }
+
+    /**
+     * The journal is flushed to the job state logfile before the held jobs are started and before the job info file
+     * is written.
+     */
+    synchronized JobStateJournal getJobStateJournal() {
+        if (jobStateJournal == null) {
+            File jobStateLogFile = getRuntimeService().getJobStateLogFile(this)
+            jobStateJournal = new JobStateJournal({ List<String> lines ->
+                FileSystemAccessProvider.instance.appendLinesToFileAtomically(jobStateLogFile, lines)
+            })
+        }
+        return jobStateJournal
+    }
+
     List<File> getLogFilesForExecutedJobs() {
         return Roddy.jobManager.queryExtendedJobStateById(getExecutedJobs()*.jobID).collect { it.value.logFile }
     }
@@ -6,15 +6,16 @@
 
 package de.dkfz.roddy.core
 
-import de.dkfz.roddy.execution.jobs.BEJobID
 import de.dkfz.roddy.execution.jobs.GenericJobInfo
 import de.dkfz.roddy.execution.jobs.Job
 import de.dkfz.roddy.execution.jobs.JobConstants
 import de.dkfz.roddy.execution.jobs.JobState
+import de.dkfz.roddy.execution.jobs.JobStateLog
 import de.dkfz.roddy.Constants
 import de.dkfz.roddy.Roddy
 import de.dkfz.roddy.StringConstants
 import de.dkfz.roddy.config.ToolEntry
+import de.dkfz.roddy.execution.io.ExecutionService
 import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
 import de.dkfz.roddy.execution.jobs.BEJob
 import de.dkfz.roddy.execution.jobs.LoadedJob
@@ -23,11 +24,7 @@ import de.dkfz.roddy.knowledge.files.LoadedFile
 import de.dkfz.roddy.tools.LoggerWrapper
 import groovy.transform.CompileStatic
 import groovy.transform.TypeCheckingMode
-import groovy.util.slurpersupport.NodeChild
-import groovy.xml.MarkupBuilder
 
-import static de.dkfz.roddy.StringConstants.EMPTY
-import static de.dkfz.roddy.StringConstants.SPLIT_COLON
 import static de.dkfz.roddy.StringConstants.SPLIT_COMMA
 
 /**
@@ -65,10 +62,10 @@ class ExecutionContextReaderAndWriter {
             //All necessary information about jobs is stored there.
             List<Job> jobsStartedInContext = readJobsStartedInContext(context)
 
-            Map<String, JobState> statusList = readInJobStateLogFile(context)
+            JobStateLog jobStateLog = readJobStateLogFile(context)
 
             /**
-             * Use statusList to set all the jobs states.
+             * Use the job state log to set all the jobs states.
              * If the state for a job is unknown
              */
             for (BEJob job : jobsStartedInContext) {
@@ -79,13 +76,9 @@ class ExecutionContextReaderAndWriter {
                 else
                     job.setJobState(JobState.UNSTARTED)
 
-                for (String id : statusList.keySet()) {
-                    JobState status = statusList[id]
-
-                    if (job.getJobID() ==  new BEJobID(id))
-                        continue
-                    job.setJobState(status)
-                }
+                JobStateLog.Entry entry = job.getJobID() != null ? jobStateLog.get(job.getJobID().toString()) : null
+                if (entry != null)
+                    job.setJobState(entry.state)
             }
 
             Map<String, BEJob> unknownJobs = new LinkedHashMap<>()
@@ -159,8 +152,10 @@ class ExecutionContextReaderAndWriter {
     }
 
     /**
-     * Read in the real job calls file which contains a detailed description of all started jobs for a context.
-     * The real job calls file is an xml file, thus the method itself is not checked on compilation.
+     * Read in the job info file which contains a detailed description of all started jobs for a context.
+     * The file is read with a streaming parser, neither its text nor a DOM is kept in memory.
+     * The LoadedJob and LoadedFile constructors do not match the read types, thus the method itself is not checked
+     * on compilation.
      * @param context
      * @return
      */
@@ -168,49 +163,27 @@ class ExecutionContextReaderAndWriter {
     List<Job> readJobInfoFile(ExecutionContext context) {
         List<Job> jobList = []
         final File jobInfoFile = context.getRuntimeService().getJobInfoFile(context)
-        String[] _text = FileSystemAccessProvider.getInstance().loadTextFile(jobInfoFile)
-        if (_text == null)
-            _text = new String[0]
-        String text = _text.join(EMPTY)
-        if (!text)
+        Reader reader = FileSystemAccessProvider.getInstance().openTextFileReader(jobInfoFile)
+        if (reader == null)
             return jobList
 
-        NodeChild jobinfo = (NodeChild) new XmlSlurper().parseText(text)
-
         try {
-            for (job in jobinfo.jobs.job) {
-                String jobID = job.@id.text()
-                String jobToolID = job.tool.@toolid.text()
-                String jobToolMD5 = job.tool.@md5
-                String jobName = job.@name.text()
-                Map<String, String> jobsParameters = [:]
-                List<LoadedFile> loadedFiles = []
-                List<String> parentJobsIDs = []
-
-                for (parameter in job.parameters.parameter) {
-                    String name = parameter.@name.text()
-                    String value = parameter.@value.text()
-                    jobsParameters[name] = value
-                }
-                if(jobsParameters.containsKey(JobConstants.PRM_TOOL_ID))
-                    jobToolID = jobsParameters[JobConstants.PRM_TOOL_ID]  // Override with safe value!
-
-                for (file in job.filesbyjob.file) {
-                    String fileid = file.@id.text()
-                    String path = file.@path.text()
-                    String cls = file.@class.text()
-                    List<String> _parentFiles = Arrays.asList(file.@parentfiles.text().split(SPLIT_COMMA))
-                    LoadedFile rb = new LoadedFile(new File(path), jobID, context, _parentFiles, cls)
-                    loadedFiles << rb
-                }
+            reader.withCloseable {
+                JobInfoFile.read(reader) { JobInfoFile.JobEntry job ->
+                    Map<String, String> jobsParameters = job.parameters
+                    String jobToolID = job.toolID
+                    if (jobsParameters.containsKey(JobConstants.PRM_TOOL_ID))
+                        jobToolID = jobsParameters[JobConstants.PRM_TOOL_ID]  // Override with safe value!
+
+                    List<LoadedFile> loadedFiles = job.files.collect { JobInfoFile.FileEntry file ->
+                        List<String> _parentFiles = Arrays.asList(file.parentFiles.split(SPLIT_COMMA))
+                        new LoadedFile(new File(file.path), job.id, context, _parentFiles, file.className)
+                    }
+                    List<String> parentJobsIDs = job.dependencies.collect { JobInfoFile.DependencyEntry dependency -> dependency.jobID }
 
-                for (dependency in job.dependencies.job) {
-                    String id = dependency.@id.text()
-                    String fileid = dependency.@fileid.text()
-                    String filepath = dependency.@filepath.text()
-                    parentJobsIDs << id
+                    jobList << new LoadedJob(context, job.name, job.id, jobToolID, job.toolMD5, jobsParameters, loadedFiles, parentJobsIDs)
+                    return true
                 }
-                jobList << new LoadedJob(context, jobName, jobID, jobToolID, jobToolMD5, jobsParameters, loadedFiles, parentJobsIDs)
             }
         } catch (Exception ex) {
             logger.warning("Could not read in xml file " + ex.toString())
@@ -225,57 +198,58 @@ class ExecutionContextReaderAndWriter {
     }
 
     @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    String writeJobInfoFile(ExecutionContext context) {
+    boolean writeJobInfoFile(ExecutionContext context) {
         final File jobInfoFile = context.getRuntimeService().getJobInfoFile(context)
         final List<BEJob> executedJobs = context.getExecutedJobs()
 
-        def writer = new StringWriter()
-        def xml = new MarkupBuilder(writer)
-
-        xml.jobinfo {
-            jobs {
+        return FileSystemAccessProvider.getInstance().writeTextFile(jobInfoFile, { Writer writer ->
+            new JobInfoFileWriter(writer).withCloseable { JobInfoFileWriter jobInfoWriter ->
                 for (BEJob ej in executedJobs) {
                     try {
                         if (ej.isFakeJob()) continue //Skip fake jobs.
-                        job(id: ej.getJobID(), name: ej.jobName) {
-                            String commandString = ej.runResult.command != null ? ej.runResult.command.toString() : ""
-                            calledcommand(command: commandString)
-                            tool(id: ej.getToolID(), md5: ej.getToolMD5())
-                            parameters {
-                                ej.getParameters().each {
-                                    String k, String v ->
-                                        parameter(name: k, value: v)
-                                }
-                            }
-                            filesbyjob {
-                                for (BaseFile bf in ej.getFilesToVerify()) {
-                                    String pfiles = bf.getParentFiles().collect({ BaseFile baseFile -> baseFile.absolutePath.hashCode() }).join(",")
-                                    file(class: bf.class.name, id: bf.absolutePath.hashCode(), path: bf.absolutePath, parentfiles: pfiles)
-                                }
-                            }
-                            dependendies {
-                                for (BaseFile bf in ej.getParentFiles()) {
-                                    if (bf.isSourceFile())
-                                        continue
-                                    if (bf.creatingJobsResult == null)
-                                        continue
-                                    String depJobID
-                                    try {
-                                        depJobID = bf.getCreatingJobsResult().getJob().getJobID()
-                                    } catch (Exception ex) {
-                                        depJobID = "Error"
-                                    }
-                                    job(id: depJobID, fileid: bf.absolutePath.hashCode(), filepath: bf.absolutePath)
-                                }
-                            }
-                        }
+                        jobInfoWriter.writeJob(createJobInfoEntry(ej))
                     } catch (Exception ex) {
                         logger.severe("An error occurred, when the job info xml file was written. These errors are not vital but should be handled properly", ex)
                     }
                 }
             }
+        }, context)
+    }
+
+    /**
+     * Collect the information about a job for the job info file. This is done before anything is written, so errors
+     * do not leave incomplete elements in the file.
+     */
+    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
+    private JobInfoFile.JobEntry createJobInfoEntry(BEJob ej) {
+        JobInfoFile.JobEntry entry = new JobInfoFile.JobEntry(
+                id: ej.getJobID()?.toString(),
+                name: ej.jobName,
+                command: ej.runResult.command != null ? ej.runResult.command.toString() : "",
+                toolID: ej.getToolID(),
+                toolMD5: ej.getToolMD5())
+        ej.getParameters().each {
+            String k, String v ->
+                entry.parameters[k] = v
+        }
+        for (BaseFile bf in ej.getFilesToVerify()) {
+            String pfiles = bf.getParentFiles().collect({ BaseFile baseFile -> baseFile.absolutePath.hashCode() }).join(",")
+            entry.files << new JobInfoFile.FileEntry(className: bf.class.name, id: "" + bf.absolutePath.hashCode(), path: bf.absolutePath, parentFiles: pfiles)
+        }
+        for (BaseFile bf in ej.getParentFiles()) {
+            if (bf.isSourceFile())
+                continue
+            if (bf.creatingJobsResult == null)
+                continue
+            String depJobID
+            try {
+                depJobID = bf.getCreatingJobsResult().getJob().getJobID()
+            } catch (Exception ex) {
+                depJobID = "Error"
+            }
+            entry.dependencies << new JobInfoFile.DependencyEntry(jobID: depJobID, fileID: "" + bf.absolutePath.hashCode(), filePath: bf.absolutePath)
         }
-        FileSystemAccessProvider.getInstance().writeTextFile(jobInfoFile, writer.toString(), context)
+        return entry
     }
 
     /**
@@ -319,43 +293,36 @@ class ExecutionContextReaderAndWriter {
     }
 
     /**
-     * Read in all states from the job states logfile and set those to all jobsStartedInContext entries.
+     * Read in all states from the job states logfile.
      * @param context
-     * @param jobsStartedInContext
+     * @return The latest state of each job by its id
      */
     Map<String, JobState> readInJobStateLogFile(ExecutionContext context) {
-        FileSystemAccessProvider fip = FileSystemAccessProvider.getInstance()
+        return readJobStateLogFile(context).entries.collectEntries { String id, JobStateLog.Entry entry -> [id, entry.state] } as Map<String, JobState>
+    }
+
+    /**
+     * Read the job states logfile. A local file is read line by line, otherwise the file is loaded via the file
+     * system access provider.
+     * @param context
+     * @return The latest entry of each job
+     */
+    JobStateLog readJobStateLogFile(ExecutionContext context) {
         File jobStatesLogFile = context.getRuntimeService().getJobStateLogFile(context)
-        String[] jobStateList = fip.loadTextFile(jobStatesLogFile)
 
-        if (jobStateList == null || jobStateList.size() == 0) {
-            context.addErrorEntry(ExecutionContextError.READBACK_NOJOBSTATESFILE)
-            return [:]
+        JobStateLog jobStateLog
+        if (ExecutionService.instance.isLocalService() && jobStatesLogFile.canRead()) {
+            jobStateLog = jobStatesLogFile.withReader { Reader reader -> JobStateLog.read(reader) }
         } else {
-            //All in which were completed!
-            Map<String, JobState> statusList = new LinkedHashMap<>()
-            Map<String, Long> timestampList = new LinkedHashMap<>()
-
-            for (String stateEntry : jobStateList) {
-                if (stateEntry.startsWith("null"))
-                    continue //Skip null:N:...
-                String[] split = stateEntry.split(SPLIT_COLON)
-                if (split.length < 2) continue
-
-                String id = split[0]
-                JobState status = null // TODO: Roddy.getJobManager().parseJobState(split[1])
-                long timestamp = 0
-                if (split.length == 3)
-                    timestamp = Long.parseLong(split[2])
-
-                //Override if previous timestamp is lower or equal
-                if (timestampList.get(id, 0L) <= timestamp) {
-                    statusList[id] = status
-                    timestampList[id] = timestamp
-                }
-            }
-
-            return statusList
+            String[] jobStateList = FileSystemAccessProvider.getInstance().loadTextFile(jobStatesLogFile)
+            jobStateLog = JobStateLog.read(jobStateList != null ? Arrays.asList(jobStateList) : [])
         }
+        // Lines of the running submission, which were not flushed yet
+        for (String line : context.getJobStateJournal().getPendingLines())
+            jobStateLog.add(line)
+
+        if (jobStateLog.size() == 0)
+            context.addErrorEntry(ExecutionContextError.READBACK_NOJOBSTATESFILE)
+        return jobStateLog
     }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.core
+
+import groovy.transform.CompileStatic
+
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamException
+import javax.xml.stream.XMLStreamReader
+
+/**
+ * Streaming reader for the job info file of an execution context (see JobInfoFileWriter for the layout). Jobs are
+ * passed to the caller one by one, so only a single job is kept in memory. The caller can stop reading after any job.
+ */
+@CompileStatic
+class JobInfoFile {
+
+    static class FileEntry {
+        String id
+        String path
+        String className
+        String parentFiles
+    }
+
+    static class DependencyEntry {
+        String jobID
+        String fileID
+        String filePath
+    }
+
+    static class JobEntry {
+        String id
+        String name
+        String command
+        String toolID
+        String toolMD5
+        Map<String, String> parameters = new LinkedHashMap<>()
+        List<FileEntry> files = []
+        List<DependencyEntry> dependencies = []
+    }
+
+    private static final XMLInputFactory factory = XMLInputFactory.newInstance()
+
+    /**
+     * Read all jobs and pass them to the consumer. Reading stops, if the consumer returns false.
+     * @return false, if reading was stopped by the consumer
+     */
+    static boolean read(Reader reader, Closure<Boolean> consumer) throws XMLStreamException {
+        return readJobs(reader) { XMLStreamReader xml ->
+            consumer.call(readJob(xml))
+        }
+    }
+
+    /**
+     * Call the closure for each job element in jobinfo/jobs. The closure must leave the reader after the end element
+     * of the job and return false to stop reading.
+     */
+    private static boolean readJobs(Reader reader, Closure<Boolean> onJob) {
+        XMLStreamReader xml = factory.createXMLStreamReader(reader)
+        try {
+            int depth = 0
+            boolean inJobs = false
+            while (xml.hasNext()) {
+                int event = xml.next()
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++
+                    if (depth == 2) {
+                        inJobs = xml.localName == "jobs"
+                    } else if (depth == 3 && inJobs && xml.localName == "job") {
+                        depth-- // The closure consumes the end element of the job.
+                        if (!onJob.call(xml))
+                            return false
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--
+                }
+            }
+            return true
+        } finally {
+            xml.close()
+        }
+    }
+
+    private static JobEntry readJob(XMLStreamReader xml) {
+        JobEntry job = new JobEntry(id: attribute(xml, "id"), name: attribute(xml, "name"))
+        forEachChild(xml) {
+            switch (xml.localName) {
+                case "calledcommand":
+                    job.command = attribute(xml, "command")
+                    skipElement(xml)
+                    break
+                case "tool":
+                    // Older files use toolid
+                    job.toolID = attribute(xml, "id", attribute(xml, "toolid"))
+                    job.toolMD5 = attribute(xml, "md5")
+                    skipElement(xml)
+                    break
+                case "parameters":
+                    forEachChild(xml) {
+                        if (xml.localName == "parameter") {
+                            String name = attribute(xml, "name")
+                            job.parameters[name] = attribute(xml, "value")
+                        }
+                        skipElement(xml)
+                    }
+                    break
+                case "filesbyjob":
+                    forEachChild(xml) {
+                        if (xml.localName == "file")
+                            job.files << new FileEntry(id: attribute(xml, "id"), path: attribute(xml, "path"),
+                                    className: attribute(xml, "class"), parentFiles: attribute(xml, "parentfiles"))
+                        skipElement(xml)
+                    }
+                    break
+                case "dependencies":
+                case "dependendies": // The name written by earlier versions
+                    forEachChild(xml) {
+                        if (xml.localName == "job")
+                            job.dependencies << new DependencyEntry(jobID: attribute(xml, "id"), fileID: attribute(xml, "fileid"),
+                                    filePath: attribute(xml, "filepath"))
+                        skipElement(xml)
+                    }
+                    break
+                default:
+                    skipElement(xml)
+            }
+        }
+        return job
+    }
+
+    private static String attribute(XMLStreamReader xml, String name) {
+        return attribute(xml, name, "")
+    }
+
+    private static String attribute(XMLStreamReader xml, String name, String defaultText) {
+        String value = xml.getAttributeValue(null, name)
+        return value != null ? value : defaultText
+    }
+
+    /**
+     * Call the closure for each child element of the current element. The closure must leave the reader after the
+     * end element of the child. Returns after the end element of the current element.
+     */
+    private static void forEachChild(XMLStreamReader xml, Closure closure) {
+        while (xml.hasNext()) {
+            int event = xml.next()
+            if (event == XMLStreamConstants.START_ELEMENT)
+                closure.call()
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                return
+        }
+    }
+
+    /**
+     * Skip the current element including all of its children.
+     */
+    private static void skipElement(XMLStreamReader xml) {
+        int depth = 1
+        while (depth > 0 && xml.hasNext()) {
+            int event = xml.next()
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--
+        }
+    }
+}
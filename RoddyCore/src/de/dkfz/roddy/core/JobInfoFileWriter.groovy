@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.core
+
+import groovy.transform.CompileStatic
+
+import javax.xml.stream.XMLOutputFactory
+import javax.xml.stream.XMLStreamException
+import javax.xml.stream.XMLStreamWriter
+
+/**
+ * Streaming writer for the job info file of an execution context. Jobs are written one by one:
+ *
+ * <jobinfo>
+ *   <jobs>
+ *     <job id="" name="">
+ *       <calledcommand command=""/>
+ *       <tool id="" md5=""/>
+ *       <parameters><parameter name="" value=""/>...</parameters>
+ *       <filesbyjob><file class="" id="" path="" parentfiles=""/>...</filesbyjob>
+ *       <dependendies><job id="" fileid="" filepath=""/>...</dependendies>
+ *     </job>
+ *   </jobs>
+ * </jobinfo>
+ *
+ * The misspelled dependendies element is kept for compatibility with existing files.
+ */
+@CompileStatic
+class JobInfoFileWriter implements Closeable {
+
+    private static final XMLOutputFactory factory = XMLOutputFactory.newInstance()
+
+    private final XMLStreamWriter xml
+
+    private int indentation = 0
+
+    private boolean rootStarted = false
+
+    JobInfoFileWriter(Writer writer) throws XMLStreamException {
+        xml = factory.createXMLStreamWriter(writer)
+        startElement("jobinfo")
+        startElement("jobs")
+    }
+
+    void writeJob(JobInfoFile.JobEntry job) throws XMLStreamException {
+        startElement("job", [id: job.id, name: job.name])
+        emptyElement("calledcommand", [command: job.command])
+        emptyElement("tool", [id: job.toolID, md5: job.toolMD5])
+        startElement("parameters")
+        job.parameters.each { String name, String value -> emptyElement("parameter", [name: name, value: value]) }
+        endElement()
+        startElement("filesbyjob")
+        for (JobInfoFile.FileEntry file : job.files)
+            emptyElement("file", ["class": file.className, id: file.id, path: file.path, parentfiles: file.parentFiles])
+        endElement()
+        startElement("dependendies")
+        for (JobInfoFile.DependencyEntry dependency : job.dependencies)
+            emptyElement("job", [id: dependency.jobID, fileid: dependency.fileID, filepath: dependency.filePath])
+        endElement()
+        endElement()
+    }
+
+    @Override
+    void close() throws IOException {
+        try {
+            endElement()
+            endElement()
+            xml.flush()
+            xml.close()
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex)
+        }
+    }
+
+    private void indent() {
+        // No whitespace before the root element
+        if (rootStarted)
+            xml.writeCharacters("\n" + "  " * indentation)
+        rootStarted = true
+    }
+
+    private void startElement(String name, Map<String, String> attributes = [:]) {
+        indent()
+        xml.writeStartElement(name)
+        writeAttributes(attributes)
+        indentation++
+    }
+
+    private void emptyElement(String name, Map<String, String> attributes) {
+        indent()
+        xml.writeEmptyElement(name)
+        writeAttributes(attributes)
+    }
+
+    private void endElement() {
+        indentation--
+        indent()
+        xml.writeEndElement()
+    }
+
+    private void writeAttributes(Map<String, String> attributes) {
+        attributes.each { String name, String value -> xml.writeAttribute(name, value != null ? value : "") }
+    }
+}
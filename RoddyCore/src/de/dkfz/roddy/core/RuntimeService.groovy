@@ -140,13 +140,12 @@ class RuntimeService {
             _listOfPossibleDataSetsByAnalysis[analysis] = loadCombinedListOfPossibleDataSets(analysis)
 
         if (!avoidRecursion) {
-            List<AnalysisProcessingInformation> previousExecs = readoutExecCacheFile(analysis)
+            Map<String, List<ExecCacheIndex.Entry>> entriesByDataSetID = loadExecCacheIndex(analysis).getEntriesByDataSetID()
 
             for (DataSet ds : _listOfPossibleDataSetsByAnalysis[analysis]) {
-                for (AnalysisProcessingInformation api : previousExecs) {
-                    if (api.getDataSet() == ds) {
-                        ds.addProcessingInformation(api)
-                    }
+                List<ExecCacheIndex.Entry> entries = entriesByDataSetID[ds.id] ?: new ArrayList<ExecCacheIndex.Entry>()
+                for (AnalysisProcessingInformation api : createProcessingInformation(analysis, ds, entries)) {
+                    ds.addProcessingInformation(api)
                 }
                 analysis.getProject().updateDataSet(ds, analysis)
             }
@@ -199,7 +198,7 @@ class RuntimeService {
         return new ExecutionContextReaderAndWriter(this).readJobInfoFile(context)
     }
 
-    String writeJobInfoFile(ExecutionContext context) {
+    boolean writeJobInfoFile(ExecutionContext context) {
         return new ExecutionContextReaderAndWriter(this).writeJobInfoFile(context)
     }
 
@@ -334,46 +333,85 @@ class RuntimeService {
      * @param project
      */
     List<AnalysisProcessingInformation> readoutExecCacheFile(Analysis analysis) {
-        File cacheFile = getExecCacheFile(analysis)
-        String[] execCache = FileSystemAccessProvider.getInstance().loadTextFile(cacheFile)
-        if (execCache == null)
-            execCache = new String[0]
         List<AnalysisProcessingInformation> processInfo = []
-        List<File> execDirectories = []
-        Arrays.asList(execCache).parallelStream().each {
-            String line ->
-                if (line == "") return
-                String[] info = line.split(",")
-                if (info.length < 2) return
-                File path = new File(info[0])
-                execDirectories << path
-                String dataSetID
-                try {
-                    dataSetID = analysis.getRuntimeService().extractDataSetIDFromPath(path, analysis)
-                } catch (RuntimeException e) {
-                    throw new RuntimeException(e.message + ". Please delete/backup '${cacheFile}' and restart Roddy.")
-                }
-                Analysis dataSetAnalysis = analysis.getProject().getAnalysis(info[1])
-                DataSet ds = analysis.getDataSet(dataSetID)
-                if (dataSetAnalysis == analysis) {
-                    AnalysisProcessingInformation api = new AnalysisProcessingInformation(dataSetAnalysis, ds, path)
-                    if (info.length > 3) {
-                        String user = info[3]
-                        api.setExecutingUser(user)
-                    }
-                    synchronized (processInfo) {
-                        processInfo << api
-                    }
-                }
-        }
+        readoutExecCacheFileByDataSet(analysis).values().each { List<AnalysisProcessingInformation> infos -> processInfo.addAll(infos) }
         if (processInfo.size() == 0) {
-            logger.postSometimesInfo("No process info objects could be matched for ${execCache.size()} lines in the cache file.")
+            logger.postSometimesInfo("No process info objects could be matched for the lines in the cache file.")
             //TODO Possible input output directory mismatch or configuration error!
         }
         processInfo.sort { AnalysisProcessingInformation p1, AnalysisProcessingInformation p2 -> p1.getExecPath().absolutePath.compareTo(p2.getExecPath().getAbsolutePath()) }
         return processInfo
     }
 
+    /**
+     * Get the runs of the analysis from the execution cache file grouped by their dataset. Datasets without a run of
+     * the analysis are left out.
+     * @return The runs of each dataset sorted by their execution directory
+     */
+    Map<DataSet, List<AnalysisProcessingInformation>> readoutExecCacheFileByDataSet(Analysis analysis) {
+        Map<DataSet, List<AnalysisProcessingInformation>> processInfoByDataSet = new LinkedHashMap<>()
+        loadExecCacheIndex(analysis).getEntriesByDataSetID().each { String dataSetID, List<ExecCacheIndex.Entry> entries ->
+            DataSet dataSet = analysis.getDataSet(dataSetID)
+            List<AnalysisProcessingInformation> processInfo = createProcessingInformation(analysis, dataSet, entries)
+            if (processInfo)
+                processInfoByDataSet[dataSet] = processInfo
+        }
+        return processInfoByDataSet
+    }
+
+    /**
+     * Get the runs of a single dataset from the execution cache file.
+     */
+    List<AnalysisProcessingInformation> readoutExecCacheFile(Analysis analysis, DataSet dataSet) {
+        return createProcessingInformation(analysis, dataSet, loadExecCacheIndex(analysis).getEntries(dataSet.id))
+    }
+
+    /**
+     * Get the latest run of a dataset from the execution cache file.
+     * @return The processing information or null, if the dataset was not processed with the analysis
+     */
+    AnalysisProcessingInformation readoutLatestExecution(Analysis analysis, DataSet dataSet) {
+        List<AnalysisProcessingInformation> processInfo = readoutExecCacheFile(analysis, dataSet)
+        return processInfo ? processInfo.last() : null
+    }
+
+    /**
+     * Update the index of the execution cache file with the lines appended since the last read.
+     */
+    ExecCacheIndex loadExecCacheIndex(Analysis analysis) {
+        File cacheFile = getExecCacheFile(analysis)
+        String dataSetPattern = getOutputAnalysisBaseDirectoryCV(analysis).toFile(analysis).getAbsolutePath()
+        ExecCacheIndex index = ExecCacheIndexStore.getInstance().getIndex(cacheFile, dataSetPattern)
+        FileSystemAccessProvider provider = FileSystemAccessProvider.getInstance()
+        index.update({ long offset -> provider.loadTextFileFrom(cacheFile, offset) }, { File path ->
+            try {
+                return analysis.getRuntimeService().extractDataSetIDFromPath(path, analysis)
+            } catch (RuntimeException e) {
+                throw new RuntimeException(e.message + ". Please delete/backup '${cacheFile}' and restart Roddy.")
+            }
+        })
+        return index
+    }
+
+    /**
+     * Create the processing information objects for the cache entries of a dataset, which belong to the analysis.
+     * @return The objects sorted by their execution directory
+     */
+    private List<AnalysisProcessingInformation> createProcessingInformation(Analysis analysis, DataSet dataSet, List<ExecCacheIndex.Entry> entries) {
+        List<AnalysisProcessingInformation> processInfo = []
+        for (ExecCacheIndex.Entry entry : entries) {
+            Analysis dataSetAnalysis = analysis.getProject().getAnalysis(entry.analysisID)
+            if (dataSetAnalysis != analysis)
+                continue
+            AnalysisProcessingInformation api = new AnalysisProcessingInformation(dataSetAnalysis, dataSet, new File(entry.path))
+            if (entry.user != null)
+                api.setExecutingUser(entry.user)
+            processInfo << api
+        }
+        processInfo.sort { AnalysisProcessingInformation p1, AnalysisProcessingInformation p2 -> p1.getExecPath().absolutePath.compareTo(p2.getExecPath().getAbsolutePath()) }
+        return processInfo
+    }
+
     File getLogFileForJob(Job job) {
         //Returns the log files path of the job.
         Roddy.getJobManager().queryExtendedJobStateById([job.jobID]).get(job.jobID).logFile
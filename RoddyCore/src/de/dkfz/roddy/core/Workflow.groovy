@@ -17,6 +17,7 @@ import de.dkfz.roddy.knowledge.files.BaseFile
 import de.dkfz.roddy.knowledge.files.FileGroup
 import de.dkfz.roddy.knowledge.files.FileObject
 import de.dkfz.roddy.knowledge.methods.GenericMethod
+import de.dkfz.roddy.knowledge.methods.MethodCallContext
 import groovy.transform.CompileStatic
 
 import java.lang.reflect.Method
@@ -219,6 +220,16 @@ abstract class Workflow {
         context.configurationValues << new ConfigurationValue(context.configuration, id, value.toString(), CVALUE_TYPE_BOOLEAN)
     }
 
+    /**
+     * Run the closure as the named method of this workflow. Files created by tool calls within the closure are matched
+     * against onMethod filename patterns with this frame, without taking a stack trace.
+     *
+     * @param methodName The name of the calling workflow method
+     */
+    final <T> T withMethodFrame(String methodName, Closure<T> closure) {
+        return MethodCallContext.withFrame(getClass(), methodName, closure)
+    }
+
     /**
      * Convenience method to call GenericMethod.callGenericTool()
      *
@@ -12,6 +12,10 @@ import groovy.transform.CompileStatic
  * The basic input table class for data input in table format instead of files.
  * To get the full power of the class, create a custom class in your workflow
  * extends this one and add all the stuff you need.
+ *
+ * The values are stored in dictionary encoded columns (see MetadataTableColumns). A subset shares the columns with
+ * its origin and only keeps the numbers of its rows, so selecting the rows of a dataset is an index lookup and does
+ * not copy any values.
  */
 @CompileStatic
 class BaseMetadataTable {
@@ -27,7 +31,14 @@ class BaseMetadataTable {
     // A map which links column id and column position.
     // The table uses internal column ids
     protected Map<String, Integer> headerMap = [:]
-    protected List<Map<String, String>> records = []
+
+    private MetadataTableColumns columns
+
+    /**
+     * The ascending numbers of the rows of the columns, which belong to this table, or null for all rows.
+     * The array is shared between tables and must not be modified.
+     */
+    private int[] rows
 
     public static final String INPUT_TABLE_DATASET = "datasetCol"
     public static final String INPUT_TABLE_FILE = "fileCol"
@@ -40,7 +51,8 @@ class BaseMetadataTable {
         this.custom2InternalIDMap += origin.custom2InternalIDMap
         this.mandatoryColumns += origin.mandatoryColumns
         this.headerMap += origin.headerMap
-        this.records += origin.records
+        this.columns = origin.columns
+        this.rows = origin.rows
     }
 
     /**
@@ -51,7 +63,22 @@ class BaseMetadataTable {
         this.custom2InternalIDMap += origin.custom2InternalIDMap
         this.mandatoryColumns += origin.mandatoryColumns
         this.headerMap += origin.headerMap
-        this.records += records
+        List<String> columnNames = origin.columns.columnNames
+        this.columns = new MetadataTableColumns(columnNames, records.collect { Map<String, String> record ->
+            columnNames.collect { String columnName -> record.get(columnName) } as String[]
+        })
+    }
+
+    /**
+     * Create a view on the rows of the origin.
+     */
+    protected BaseMetadataTable(BaseMetadataTable origin, int[] rows) {
+        this.internal2CustomIDMap += origin.internal2CustomIDMap
+        this.custom2InternalIDMap += origin.custom2InternalIDMap
+        this.mandatoryColumns += origin.mandatoryColumns
+        this.headerMap += origin.headerMap
+        this.columns = origin.columns
+        this.rows = rows
     }
 
     BaseMetadataTable(Map<String, Integer> headerMap, Map<String, String> internal2CustomIDMap, List<String> mandatoryColumns, List<Map<String, String>> records) {
@@ -60,25 +87,24 @@ class BaseMetadataTable {
             String key, String val -> custom2InternalIDMap[val] = key
         }
         this.mandatoryColumns = mandatoryColumns
-        def collect = records.collect {
+        List<String> columnNames = internal2CustomIDMap.keySet() as List<String>
+        Map<String, Integer> columnIndices = [:]
+        columnNames.eachWithIndex { String columnName, int i -> columnIndices[columnName] = i }
+        List<String[]> rows = records.collect {
             Map<String, String> record ->
-                Map<String, String> clone = [:] as Map<String, String>
-                for (String header in internal2CustomIDMap.keySet())
-                    clone[header] = (String) null
+                String[] row = new String[columnNames.size()]
                 for (String key in record.keySet()) {
-                    String val = record[key]
-
                     def internalKey = custom2InternalIDMap[key]
                     if (internalKey == null)
                         throw new RuntimeException("The metadata table key '${key}' could not be mapped to an internal key!")
 
-                    clone[internalKey] = val
+                    row[columnIndices[internalKey]] = record[key]
                 }
-                return clone
+                return row
         }
 
         this.headerMap = headerMap
-        this.records = collect as List<Map<String, String>>
+        this.columns = new MetadataTableColumns(columnNames, rows)
     }
 
     List<String> getMandatoryColumnNames() {
@@ -113,7 +139,7 @@ class BaseMetadataTable {
 
     void assertValidTable() {
         assertHeader()
-        records.each { assertValidRecord(it) }
+        getRecords().each { assertValidRecord(it) }
     }
 
     Map<String, Integer> getHeaderMap() {
@@ -139,18 +165,15 @@ class BaseMetadataTable {
     }
 
 
+    /**
+     * @return A copy of the rows
+     */
     List<Map<String, String>> getTable() {
-        return records.collect { it.clone() } as List<Map<String, String>>
+        return new ArrayList<Map<String, String>>(getRecords())
     }
 
     BaseMetadataTable unsafeSubsetByColumn(String columnName, String value) {
-
-        // Look into internal mapping table for headernames to varnames
-        return new BaseMetadataTable(
-                this,
-                records.findAll { Map<String, String> row ->
-                    row.get(columnName) == value
-                })
+        return unsafeSubsetBy([(columnName): value])
     }
 
     /** Get a subset of rows by unique values in a specified column (internal column namespace).
@@ -170,7 +193,7 @@ class BaseMetadataTable {
     /** Given a column names, throw if that column or some higher-priority mandatory column have non-unique values. */
     BaseMetadataTable assertUniqueness(String columnName = null) {
         for(String colToCheck : mandatoryColumnNames) {
-            if (listColumn(colToCheck).unique().size() != 1) {
+            if (!hasSingleValue(colToCheck)) {
                 throw new RuntimeException("For metadata table column(s) '${columnName}' higher-priority column values for '${colToCheck}' are not unique: ${listColumn(colToCheck).unique().sort()}")
             }
             if (colToCheck.equals(columnName)) {
@@ -184,11 +207,50 @@ class BaseMetadataTable {
         return subsetByColumn(INPUT_TABLE_DATASET, datasetId)
     }
 
+    /**
+     * Select the rows with all the values. The rows of the rarest value are taken from the column index, or the rows
+     * of this table if there are less of them, and are checked for the other values.
+     */
     BaseMetadataTable unsafeSubsetBy(Map<String, String> columnValueMap) {
-        BaseMetadataTable result = columnValueMap.inject(this) { BaseMetadataTable metaDataTable, String columnName, String value ->
-            metaDataTable.unsafeSubsetByColumn(columnName, value)
-        } as BaseMetadataTable
-        return result
+        if (!columnValueMap)
+            return this
+
+        List<Integer> selectedColumns = []
+        List<Integer> selectedCodes = []
+        int[] candidates = null
+        for (String columnName : columnValueMap.keySet()) {
+            String value = columnValueMap[columnName]
+            int column = columns.columnIndex(columnName)
+            if (column < 0) {
+                // All values of an unknown column are null
+                if (value != null)
+                    return new BaseMetadataTable(this, new int[0])
+                continue
+            }
+            int code = columns.codeOf(column, value)
+            if (code < 0)
+                return new BaseMetadataTable(this, new int[0])
+            int[] rowsWithValue = columns.rowsWithCode(column, code)
+            if (candidates == null || rowsWithValue.length < candidates.length)
+                candidates = rowsWithValue
+            selectedColumns << column
+            selectedCodes << code
+        }
+        if (candidates == null)
+            return new BaseMetadataTable(this, rows)
+
+        boolean scanRows = rows != null && rows.length < candidates.length
+        int[] scanned = scanRows ? rows : candidates
+        int[] selected = new int[scanned.length]
+        int count = 0
+        for (int row : scanned) {
+            boolean matches = scanRows || rows == null || Arrays.binarySearch(rows, row) >= 0
+            for (int i = 0; matches && i < selectedColumns.size(); i++)
+                matches = columns.code(selectedColumns[i], row) == selectedCodes[i]
+            if (matches)
+                selected[count++] = row
+        }
+        return new BaseMetadataTable(this, count == scanned.length ? scanned : Arrays.copyOf(selected, count))
     }
 
     BaseMetadataTable subsetBy(Map<String, String> columnValueMap) {
@@ -196,25 +258,91 @@ class BaseMetadataTable {
     }
 
     Integer size() {
-        return records.size()
+        return rows != null ? rows.length : columns.rowCount
+    }
+
+    private int row(int i) {
+        return rows != null ? rows[i] : i
     }
 
     List<String> listColumn(String columnName) {
-        return records.collect { Map<String, String> record ->
-            record.get(columnName)
+        int column = columns.columnIndex(columnName)
+        List<String> values = new ArrayList<String>(size())
+        for (int i = 0; i < size(); i++)
+            values << (column < 0 ? (String) null : columns.value(column, row(i)))
+        return values
+    }
+
+    /**
+     * @return The distinct values of the column in the order of their first occurrence
+     */
+    List<String> listDistinctValues(String columnName) {
+        int column = columns.columnIndex(columnName)
+        if (column < 0)
+            return size() > 0 ? [(String) null] : new ArrayList<String>()
+        if (rows == null) {
+            // The dictionary is in the order of the first occurrence
+            List<String> values = []
+            for (int code = 0; code < columns.dictionarySize(column); code++)
+                values << columns.valueOf(column, code)
+            return values
+        }
+        List<String> values = []
+        BitSet seen = new BitSet(columns.dictionarySize(column))
+        for (int row : rows) {
+            int code = columns.code(column, row)
+            if (!seen.get(code)) {
+                seen.set(code)
+                values << columns.valueOf(column, code)
+            }
+        }
+        return values
+    }
+
+    /**
+     * @return true, if the table is not empty and all rows have the same value in the column
+     */
+    private boolean hasSingleValue(String columnName) {
+        int column = columns.columnIndex(columnName)
+        if (size() == 0)
+            return false
+        if (column < 0)
+            return true
+        int firstCode = columns.code(column, row(0))
+        for (int i = 1; i < size(); i++) {
+            if (columns.code(column, row(i)) != firstCode)
+                return false
         }
+        return true
     }
 
     List<String> listDatasets() {
-        return listColumn(INPUT_TABLE_DATASET).unique()
+        return listDistinctValues(INPUT_TABLE_DATASET)
     }
 
     List<File> listFiles() {
-        return listColumn(INPUT_TABLE_FILE).unique().collect { new File(it) }
+        return listDistinctValues(INPUT_TABLE_FILE).collect { new File(it) }
     }
 
+    /**
+     * @return A read-only list of the rows. The maps are created on access.
+     */
     List<Map<String, String>> getRecords() {
-        return records
+        final MetadataTableColumns tableColumns = columns
+        final int[] tableRows = rows
+        return new AbstractList<Map<String, String>>() {
+            @Override
+            Map<String, String> get(int index) {
+                if (index < 0 || index >= size())
+                    throw new IndexOutOfBoundsException("Index: ${index}, size: ${size()}")
+                return tableColumns.row(tableRows != null ? tableRows[index] : index)
+            }
+
+            @Override
+            int size() {
+                return tableRows != null ? tableRows.length : tableColumns.rowCount
+            }
+        }
     }
 
 }
@@ -19,6 +19,8 @@ import de.dkfz.roddy.config.loader.ConfigurationLoaderException
 import de.dkfz.roddy.core.*
 import de.dkfz.roddy.execution.BEExecutionService
 import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
+import de.dkfz.roddy.execution.io.fs.ProbeResult
+import de.dkfz.roddy.execution.io.fs.ProbeType
 import de.dkfz.roddy.execution.jobs.*
 import de.dkfz.roddy.execution.jobs.cluster.lsf.LSFCommand
 import de.dkfz.roddy.execution.jobs.cluster.pbs.PBSCommand
@@ -48,6 +50,12 @@ abstract class ExecutionService implements BEExecutionService {
     private static final LoggerWrapper logger = LoggerWrapper.getLogger(ExecutionService.class.name)
     private static ExecutionService executionService
 
+    /**
+     * Serializes the compression of the tool folders and their upload. Contexts, which are processed in parallel, share
+     * the compressed archives and the archive overview file in the common execution directory.
+     */
+    private static final Object toolArchiveLock = new Object()
+
     public static final String RODDY_CVALUE_DIRECTORY_LOCKFILES = "DIR_LOCKFILES"
     public static final String RODDY_CVALUE_DIRECTORY_TEMP = "DIR_TEMP"
     public static final String RODDY_CVALUE_DIRECTORY_EXECUTION = "DIR_EXECUTION"
@@ -237,6 +245,28 @@ abstract class ExecutionService implements BEExecutionService {
         }
     }
 
+    /**
+     * Execute a list of independent commands. Services which support concurrent execution (like the SSHExecutionService)
+     * override this and run the commands in parallel. The default implementation executes them one after another.
+     *
+     * @param commands A list of commands which do not depend on each other.
+     * @return The results in the order of the commands.
+     */
+    List<ExecutionResult> executeInParallel(List<String> commands) {
+        return commands.collect { String command -> execute(command, true) }
+    }
+
+    /**
+     * Copy several independent files by their target. Services which support concurrent transfers (like the
+     * SSHExecutionService) override this and copy the files in parallel. The default implementation copies them one
+     * after another.
+     *
+     * @return true, if all files were copied
+     */
+    boolean copyFilesInParallel(Map<File, File> filesByTarget) {
+        return filesByTarget.collect { File _out, File _in -> copyFile(_in, _out) }.every()
+    }
+
     /** Create somehow valid submission IDs.
      *
      * @param command
@@ -331,19 +361,30 @@ abstract class ExecutionService implements BEExecutionService {
         FileSystemAccessProvider fsap = FileSystemAccessProvider.getInstance()
         Analysis analysis = context.getAnalysis()
 
+        File inputBaseDirectory = analysis.getInputBaseDirectory()
+        File outputBaseDirectory = analysis.getOutputBaseDirectory()
+        File outputDirectory = context.getOutputDirectory()
+        File baseContextExecutionDirectory = context.getRuntimeService().getBaseExecutionDirectory(context)
+        File projectExecutionDirectory = context.getCommonExecutionDirectory()
+        File projectExecCacheFile = context.getRuntimeService().getExecCacheFile(context.getAnalysis())
+        File projectToolsMD5SumFile = context.getFileForAnalysisToolsArchiveOverview()
+
+        // Query everything at once instead of one call per file and test.
+        Map<File, ProbeResult> probes = fsap.probe(
+                [inputBaseDirectory, outputBaseDirectory, outputDirectory, baseContextExecutionDirectory,
+                 projectExecutionDirectory, projectExecCacheFile, projectToolsMD5SumFile],
+                EnumSet.of(ProbeType.FILE_EXISTS, ProbeType.DIRECTORY_EXISTS, ProbeType.READABLE, ProbeType.WRITABLE))
+
         // First check in and output directories for accessibility
 
         // Project input directory with i.e. ../view-by-pid
-        File inputBaseDirectory = analysis.getInputBaseDirectory()
-        Boolean inputIsReadable = fsap.isReadable(inputBaseDirectory)
+        Boolean inputIsReadable = probes[inputBaseDirectory].readable
         if (!inputIsReadable)
             context.addError(ExecutionContextError.EXECUTION_PATH_NOTFOUND_WARN.
                     expand("The input base directory is not readable: ${inputBaseDirectory}, please check access rights and ownership.", Level.SEVERE))
 
         // Project output base directory with i.e. ../results_per_pid
-        File outputBaseDirectory = analysis.getOutputBaseDirectory()
-        Boolean outputIsWriteable =
-                fsap.directoryExists(outputBaseDirectory) ? fsap.isReadable(outputBaseDirectory) && fsap.isWritable(outputBaseDirectory) : null
+        Boolean outputIsWriteable = isAccessibleDirectory(probes[outputBaseDirectory])
         if (outputIsWriteable == null)
             context.addError(ExecutionContextError.EXECUTION_PATH_NOTFOUND_WARN.
                     expand("Output base directory is missing: ${outputBaseDirectory}, please create with proper access rights and ownership.", Level.SEVERE))
@@ -352,9 +393,7 @@ abstract class ExecutionService implements BEExecutionService {
                     expand("Output base directory is not writable: ${outputBaseDirectory}, please change access rights and ownership."))
 
         // Output with dataset id
-        File outputDirectory = context.getOutputDirectory()
-        Boolean datasetDirIsWritable =
-                fsap.directoryExists(outputDirectory) ? fsap.isReadable(outputDirectory) && fsap.isWritable(outputDirectory) : null
+        Boolean datasetDirIsWritable = isAccessibleDirectory(probes[outputDirectory])
         if (datasetDirIsWritable == null)
             context.addError(ExecutionContextError.EXECUTION_PATH_NOTFOUND_WARN.
                     expand("Creating output directory: ${outputDirectory}", Level.INFO))
@@ -363,36 +402,33 @@ abstract class ExecutionService implements BEExecutionService {
                     expand("Output directory is not writable: ${outputDirectory}"))
 
         // roddyExecutionStore in the dataset folder
-        File baseContextExecutionDirectory = context.getRuntimeService().getBaseExecutionDirectory(context)
-        Boolean baseContextDirIsWritable =
-                fsap.directoryExists(baseContextExecutionDirectory) ? fsap.isReadable(baseContextExecutionDirectory) && fsap.isWritable(baseContextExecutionDirectory) : null
+        Boolean baseContextDirIsWritable = isAccessibleDirectory(probes[baseContextExecutionDirectory])
         if (baseContextDirIsWritable == Boolean.FALSE) //Do an else if because groovy might evaluate null to false.
             context.addError(ExecutionContextError.EXECUTION_PATH_NOTWRITABLE.
                     expand("The datasets execution storage folder is not writable: ${baseContextExecutionDirectory}"))
 
         // the exec_... folder in the base context exec dir. (NOT CHECKED, created later!)
-        File contextExecutionDirectory = context.getExecutionDirectory()
 
         // .roddyExecutionStore in outputBaseDirectory
-        File projectExecutionDirectory = context.getCommonExecutionDirectory()
+        ProbeResult projectExecutionDirectoryProbe = probes[projectExecutionDirectory]
         Boolean projectExecutionContextDirIsWritable =
-                fsap.directoryExists(projectExecutionDirectory) ? fsap.isReadable(projectExecutionDirectory) && fsap.directoryExists(projectExecutionDirectory) : null
+                projectExecutionDirectoryProbe.directoryExists ? projectExecutionDirectoryProbe.readable && projectExecutionDirectoryProbe.directoryExists : null
         if (projectExecutionContextDirIsWritable == Boolean.FALSE)
             context.addError(ExecutionContextError.EXECUTION_PATH_NOTWRITABLE.
                     expand("The project execution store is not writable: ${projectExecutionDirectory}"))
 
         // .roddyExecCache.txt containing the list of executed runs in the project output folder
-        File projectExecCacheFile = context.getRuntimeService().getExecCacheFile(context.getAnalysis())
+        ProbeResult projectExecCacheFileProbe = probes[projectExecCacheFile]
         Boolean projectExecCacheFileIsWritable =
-                outputIsWriteable && fsap.fileExists(projectExecCacheFile) ? fsap.isReadable(projectExecCacheFile) && fsap.isWritable(projectExecCacheFile) : null
+                outputIsWriteable && projectExecCacheFileProbe.fileExists ? projectExecCacheFileProbe.readable && projectExecCacheFileProbe.writable : null
         if (projectExecCacheFileIsWritable == Boolean.FALSE)
             context.addError(ExecutionContextError.EXECUTION_PATH_NOTWRITABLE.
                     expand("The projects execution cache file is not writable: ${projectExecCacheFile}"))
 
         // The md5 sum file in .roddyExecutionStore
-        File projectToolsMD5SumFile = context.getFileForAnalysisToolsArchiveOverview()
+        ProbeResult projectToolsMD5SumFileProbe = probes[projectToolsMD5SumFile]
         Boolean projectToolsMD5SumFileIsWritable =
-                fsap.fileExists(projectToolsMD5SumFile) ? fsap.isReadable(projectToolsMD5SumFile) && fsap.isWritable(projectToolsMD5SumFile) : projectExecutionContextDirIsWritable
+                projectToolsMD5SumFileProbe.fileExists ? projectToolsMD5SumFileProbe.readable && projectToolsMD5SumFileProbe.writable : projectExecutionContextDirIsWritable
         if (projectToolsMD5SumFileIsWritable == Boolean.FALSE)
             context.addError(ExecutionContextError.EXECUTION_PATH_NOTWRITABLE.
                     expand("The project md5sum file is not writable: ${projectToolsMD5SumFile}"))
@@ -402,6 +438,13 @@ abstract class ExecutionService implements BEExecutionService {
         return (context.getErrors().sum(0) { ExecutionContextError ece -> ece.getErrorLevel() == Level.SEVERE ? 1 : 0 } as Integer) - countErrors == 0
     }
 
+    /**
+     * @return null, if the directory does not exist, otherwise if it is readable and writable.
+     */
+    private static Boolean isAccessibleDirectory(ProbeResult probe) {
+        return probe.directoryExists ? probe.readable && probe.writable : null
+    }
+
     private class CompressedArchiveInfo {
         CompressedArchiveInfo(File localArchive, String md5, File folder) {
             this.localArchive = localArchive
@@ -587,11 +630,6 @@ abstract class ExecutionService implements BEExecutionService {
 
         provider.checkDirectory(dstExecutionDirectory, context, true)
 
-        String[] existingArchives = provider.loadTextFile(context.getFileForAnalysisToolsArchiveOverview())
-        if (existingArchives == null)
-            existingArchives = new String[0]
-        Roddy.getCompressedAnalysisToolsDirectory().mkdir()
-
         Map<File, PluginInfo> listOfFolders = sourcePaths.findAll { File it, PluginInfo pInfo -> !it.getName().contains(".svn") }
 
         //Add used base paths to configuration.
@@ -610,17 +648,24 @@ abstract class ExecutionService implements BEExecutionService {
             }
         }
 
-        long startParallelCompression = System.nanoTime()
+        synchronized (toolArchiveLock) {
+            String[] existingArchives = provider.loadTextFile(context.getFileForAnalysisToolsArchiveOverview())
+            if (existingArchives == null)
+                existingArchives = new String[0]
+            Roddy.getCompressedAnalysisToolsDirectory().mkdir()
 
-        // Check and override the listOfFolders, eventually create new temporary folders, if inline scripts are used
-        listOfFolders = writeInlineScriptsAndCorrectListOfFolders(listOfFolders, mapOfInlineScripts)
+            long startParallelCompression = System.nanoTime()
 
-        // Compress the new (or old) folder list.
-        compressToolFolders(listOfFolders, mapOfInlineScripts)
-        logger.postRareInfo("Overall tool compression took ${(System.nanoTime() - startParallelCompression) / 1000000} ms.")
+            // Check and override the listOfFolders, eventually create new temporary folders, if inline scripts are used
+            listOfFolders = writeInlineScriptsAndCorrectListOfFolders(listOfFolders, mapOfInlineScripts)
 
-        // Now check if the local file with its md5 sum exists on the remote site.
-        moveCompressedToolFilesToRemoteLocation(listOfFolders, existingArchives, provider, context)
+            // Compress the new (or old) folder list.
+            compressToolFolders(listOfFolders, mapOfInlineScripts)
+            logger.postRareInfo("Overall tool compression took ${(System.nanoTime() - startParallelCompression) / 1000000} ms.")
+
+            // Now check if the local file with its md5 sum exists on the remote site.
+            moveCompressedToolFilesToRemoteLocation(listOfFolders, existingArchives, provider, context)
+        }
 
         markConfiguredToolsAsExecutable(context)
     }
@@ -674,6 +719,9 @@ abstract class ExecutionService implements BEExecutionService {
     /**
      * Compress all folders in the given list of folders.
      * Also create some sort of (md5 based) checksum for this.
+     *
+     * The file list of each compressed folder is stored as a ToolFolderSignature next to the archive. If the folder
+     * did not change since, the archive and its md5 sum are reused without reading the files.
      * @param listOfFolders
      * @param mapOfInlineScriptsBySubfolder
      */
@@ -683,23 +731,38 @@ abstract class ExecutionService implements BEExecutionService {
                 long startSingleCompression = System.nanoTime()
 
                 PluginInfo pInfo = listOfFolders[subFolder]
-                // Md5sum from tempFolder
-                String md5sum = RoddyIOHelperMethods.getSingleMD5OfFilesInDirectoryIncludingDirectoryNamesAndPermissions(subFolder)
                 String zipFilename = "cTools_${pInfo.getName()}:${pInfo.getProdVersion()}_${subFolder.getName()}.zip"
                 String zipMD5Filename = zipFilename + "_contentmd5"
                 File tempFile = new File(Roddy.getCompressedAnalysisToolsDirectory(), zipFilename)
                 File zipMD5File = new File(Roddy.getCompressedAnalysisToolsDirectory(), zipMD5Filename)
-                boolean createNew = false
-                if (!tempFile.exists())
-                    createNew = true
+                File signatureFile = new File(Roddy.getCompressedAnalysisToolsDirectory(), zipFilename + "_signature")
 
-                if (!zipMD5File.exists() || zipMD5File.text.trim() != md5sum)
-                    createNew = true
+                ToolFolderSignature signature = ToolFolderSignature.of(subFolder)
+                String md5sum
+                if (tempFile.exists() && zipMD5File.exists() && signature.matches(signatureFile)) {
+                    md5sum = zipMD5File.text.trim()
+                    logger.postRareInfo("Reusing archive ${zipFilename}, the folder ${subFolder} did not change.")
+                } else {
+                    // Md5sum from tempFolder
+                    md5sum = RoddyIOHelperMethods.getSingleMD5OfFilesInDirectoryIncludingDirectoryNamesAndPermissions(subFolder)
+                    boolean createNew = false
+                    if (!tempFile.exists())
+                        createNew = true
+
+                    if (!zipMD5File.exists() || zipMD5File.text.trim() != md5sum)
+                        createNew = true
+
+                    if (createNew) {
+                        RoddyIOHelperMethods.compressDirectory(subFolder, tempFile)
+                        // See issue #286
+                        zipMD5File.text = md5sum
+                    }
 
-                if (createNew) {
-                    RoddyIOHelperMethods.compressDirectory(subFolder, tempFile)
-                    // See issue #286
-                    zipMD5File.text = md5sum
+                    // Written after the archive, so an interrupted compression is not taken for valid.
+                    if (signature.stable)
+                        signatureFile.text = signature.text
+                    else
+                        signatureFile.delete()
                 }
 
                 String newArchiveMD5 = md5sum
@@ -712,8 +775,29 @@ abstract class ExecutionService implements BEExecutionService {
         }
     }
 
+    /**
+     * The location of a compressed tool folder in the common execution directory.
+     */
+    private static class RemoteToolArchive {
+        File subFolder
+        File localArchive
+        String md5
+        File remoteArchive
+        File serverDirectory
+        String subFolderOnRemote
+        boolean upload
+    }
+
     /**
      * Check if the local file with its md5 sum exists on the remote site otherwise move those files from local to remote site.
+     *
+     * The archives in the common execution directory are identified by their content md5 sum, which is listed in the
+     * archive overview file. All folders are handled together, so the number of remote calls does not depend on the
+     * number of folders:
+     * 1. The overview decides, which archives are already available. One command lists those, which were removed since.
+     * 2. The missing archives are copied in parallel and added to the overview.
+     * 3. One script unpacks the archives, if necessary, and links them to the analysis tools directory of the context.
+     *
      * @param listOfFolders
      * @param existingArchives
      * @param provider
@@ -723,93 +807,123 @@ abstract class ExecutionService implements BEExecutionService {
         File dstCommonExecutionDirectory = context.getCommonExecutionDirectory()
         File dstAnalysisToolsDirectory = context.getAnalysisToolsDirectory()
 
-        listOfFolders.each {
-            File subFolder, PluginInfo pInfo ->
-                if (!subFolder.isDirectory())
-                    return
-                File localFile = mapOfPreviouslyCompressedArchivesByFolder[subFolder].localArchive
-                File remoteFile = new File(mapOfPreviouslyCompressedArchivesByFolder[subFolder].localArchive.getName()[0..-5] + "_" + context.getTimestampString() + ".zip")
-                String archiveMD5 = mapOfPreviouslyCompressedArchivesByFolder[subFolder].md5
-
-                String foundExisting = null
-                String subFolderOnRemote = subFolder.getName()
-                for (String line : existingArchives) {
-                    String[] split = line.split(StringConstants.SPLIT_COLON)
-                    String existingFilePath = split[0]
-                    String existingFileMD5 = split[1]
-                    if (split.length == 2) {
-                        existingFilePath = split[0]
-                        existingFileMD5 = split[1]
-                    } else if (split.length == 3) {                   // Newer Roddy version create directories containing version strings (separated by ":")
-                        existingFilePath = split[0] + ":" + split[1]
-                        existingFileMD5 = split[2]
-                    } else {
-                        continue
-                    }
+        Map<String, String> existingArchivesByMD5 = readArchiveOverview(existingArchives)
+        List<RemoteToolArchive> archives = []
+        for (File subFolder : listOfFolders.keySet()) {
+            if (!subFolder.isDirectory())
+                continue
+            CompressedArchiveInfo archiveInfo = mapOfPreviouslyCompressedArchivesByFolder[subFolder]
+            RemoteToolArchive archive = new RemoteToolArchive(subFolder: subFolder, localArchive: archiveInfo.localArchive, md5: archiveInfo.md5)
+            String existingArchive = existingArchivesByMD5[archive.md5]
+            if (existingArchive) {
+                archive.remoteArchive = new File(dstCommonExecutionDirectory, existingArchive)
+                archive.serverDirectory = new File(dstCommonExecutionDirectory, "/dir_" + existingArchive)
+                archive.subFolderOnRemote = archive.remoteArchive.getName().split(StringConstants.SPLIT_UNDERSCORE)[-3]
+                //TODO This is seriously a hack.
+            } else {
+                setUpNewRemoteArchive(archive, dstCommonExecutionDirectory, context)
+            }
+            archives << archive
+        }
+        if (!archives)
+            return
 
-                    if (existingFileMD5.equals(archiveMD5)) {
-                        foundExisting = existingFilePath
-                        remoteFile = new File(remoteFile.getParentFile(), existingFilePath)
-                        subFolderOnRemote = remoteFile.getName().split(StringConstants.SPLIT_UNDERSCORE)[-3]
-                        //TODO This is seriously a hack.
-                        break
-                    }
-                }
+        // An archive is lost, if neither the directory nor the zip file exist anymore. Copy it again.
+        List<RemoteToolArchive> existing = archives.findAll { RemoteToolArchive archive -> !archive.upload }
+        if (existing) {
+            String command = existing.collect { RemoteToolArchive archive ->
+                "[[ -d ${archive.serverDirectory.absolutePath} ]] || [[ -f ${archive.remoteArchive.absolutePath} ]] || echo ${archive.serverDirectory.absolutePath}"
+            }.join("; ")
+            Set<String> lostDirectories = (instance.execute(command, true).resultLines ?: []).collect { String line -> line.trim() } as Set<String>
+            for (RemoteToolArchive archive : existing) {
+                if (lostDirectories.contains(archive.serverDirectory.absolutePath))
+                    setUpNewRemoteArchive(archive, dstCommonExecutionDirectory, context)
+            }
+        }
 
-                File analysisToolsServerDir
-
-                // Check, if there is a zip file available and if the zip file is uncompressed.
-                if (foundExisting) {
-                    analysisToolsServerDir = new File(dstCommonExecutionDirectory, "/dir_" + foundExisting)
-                    File remoteZipFile = new File(dstCommonExecutionDirectory, remoteFile.getName())
-                    if (!provider.directoryExists(analysisToolsServerDir)) {
-                        //Now we may assume, that the file was not uncompressed!
-                        //Check if the zip file exists. If so, uncompress it.
-                        if (provider.fileExists(remoteZipFile)) {
-                            // Unzip the file again. foundExisting stays true
-                            GString command = RoddyIOHelperMethods.compressor.getDecompressionString(
-                                    remoteZipFile, analysisToolsServerDir, analysisToolsServerDir)
-                            instance.execute(command, true)
-                            boolean success = provider.
-                                    setDefaultAccessRightsRecursively(new File(analysisToolsServerDir.absolutePath), context)
-                            if (!success)
-                                logger.warning("Ignoring error while setting default access rights on '${analysisToolsServerDir.absolutePath} (existing archive)'")
-                        } else {
-                            // Uh Oh, the file is not existing, the directory is not existing! Copy again and unzip
-                            foundExisting = false
-                        }
-                    }
-                }
+        List<RemoteToolArchive> uploads = archives.findAll { RemoteToolArchive archive -> archive.upload }
+        if (uploads) {
+            provider.checkDirectory(dstCommonExecutionDirectory, context, true)
+            Map<File, File> filesByTarget = [:]
+            uploads.each { RemoteToolArchive archive -> filesByTarget[archive.remoteArchive] = archive.localArchive }
+            if (!provider.copyFiles(filesByTarget))
+                logger.warning("Not all tool archives could be copied to ${dstCommonExecutionDirectory.absolutePath}")
+            provider.checkFile(context.getFileForAnalysisToolsArchiveOverview(), true, context)
+            for (RemoteToolArchive archive : uploads)
+                provider.appendLineToFile(true, context.getFileForAnalysisToolsArchiveOverview(), "${archive.remoteArchive.getName()}:${archive.md5}", true)
+        } else {
+            logger.postSometimesInfo("Skipping copy of tool archives, archives with the same md5 were found.")
+        }
 
-                if (foundExisting) {
-                    analysisToolsServerDir = new File(dstCommonExecutionDirectory, "/dir_" + foundExisting)
-                    logger.postSometimesInfo("Skipping copy of file ${remoteFile.name}, a file with the same md5 was found.")
-                } else {
+        provider.checkDirectory(dstAnalysisToolsDirectory, context, true)
+        ExecutionResult result = instance.execute(createToolArchiveSetupScript(archives, dstAnalysisToolsDirectory, provider, context), true)
+        Set<String> missingDirectories = (result.resultLines ?: []).collect { String line -> line.trim() } as Set<String>
+        for (RemoteToolArchive archive : archives) {
+            if (missingDirectories.contains(archive.serverDirectory.absolutePath))
+                context.addError(ExecutionContextError.EXECUTION_PATH_NOTFOUND.
+                        expand("The central archive ${archive.serverDirectory.absolutePath} was not created!"))
+        }
+    }
+
+    /**
+     * @return The archive names in the common execution directory by their md5 sum. For duplicate sums the first
+     *         archive is used.
+     */
+    private static Map<String, String> readArchiveOverview(String[] existingArchives) {
+        Map<String, String> archivesByMD5 = [:]
+        for (String line : existingArchives) {
+            String[] split = line.split(StringConstants.SPLIT_COLON)
+            String existingFilePath
+            String existingFileMD5
+            if (split.length == 2) {
+                existingFilePath = split[0]
+                existingFileMD5 = split[1]
+            } else if (split.length == 3) {                   // Newer Roddy version create directories containing version strings (separated by ":")
+                existingFilePath = split[0] + ":" + split[1]
+                existingFileMD5 = split[2]
+            } else {
+                continue
+            }
+            if (!archivesByMD5.containsKey(existingFileMD5))
+                archivesByMD5[existingFileMD5] = existingFilePath
+        }
+        return archivesByMD5
+    }
 
-                    analysisToolsServerDir = new File(dstCommonExecutionDirectory, "/dir_" + remoteFile.getName())
-                    provider.checkDirectory(dstCommonExecutionDirectory, context, true)
-                    provider.checkDirectory(analysisToolsServerDir, context, true)
-                    provider.copyFile(localFile, new File(dstCommonExecutionDirectory, remoteFile.getName()), context)
-                    provider.checkFile(context.getFileForAnalysisToolsArchiveOverview(), true, context)
-                    provider.appendLineToFile(true, context.getFileForAnalysisToolsArchiveOverview(), "${remoteFile.getName()}:${archiveMD5}", true)
-
-                    GString str = RoddyIOHelperMethods.compressor.getDecompressionString(
-                            new File(dstCommonExecutionDirectory, remoteFile.getName()),
-                            analysisToolsServerDir, analysisToolsServerDir)
-                    instance.execute(str, true)
-                    boolean success = provider.
-                            setDefaultAccessRightsRecursively(new File(analysisToolsServerDir.absolutePath), context)
-                    if (!success)
-                        logger.warning("Ignoring error while setting default access rights on '${analysisToolsServerDir.absolutePath} (no existing archive)'")
-                    if (!provider.directoryExists(analysisToolsServerDir))
-                        context.addError(ExecutionContextError.EXECUTION_PATH_NOTFOUND.
-                                expand("The central archive ${analysisToolsServerDir.absolutePath} was not created!"))
+    private static void setUpNewRemoteArchive(RemoteToolArchive archive, File dstCommonExecutionDirectory, ExecutionContext context) {
+        String remoteArchiveName = archive.localArchive.getName()[0..-5] + "_" + context.getTimestampString() + ".zip"
+        archive.remoteArchive = new File(dstCommonExecutionDirectory, remoteArchiveName)
+        archive.serverDirectory = new File(dstCommonExecutionDirectory, "/dir_" + remoteArchiveName)
+        archive.subFolderOnRemote = archive.subFolder.getName()
+        archive.upload = true
+    }
 
+    /**
+     * Create a script, which unpacks copied archives and archives, whose directory was removed, and links all archive
+     * directories to the analysis tools directory. The script prints the archive directories, which do not exist.
+     */
+    private static String createToolArchiveSetupScript(List<RemoteToolArchive> archives, File dstAnalysisToolsDirectory, FileSystemAccessProvider provider, ExecutionContext context) {
+        List<String> script = []
+        for (RemoteToolArchive archive : archives) {
+            String serverDirectory = archive.serverDirectory.absolutePath
+            String decompress = RoddyIOHelperMethods.compressor.getDecompressionString(
+                    archive.remoteArchive, archive.serverDirectory, archive.serverDirectory).toString()
+            String unpack = "( ${decompress} ) > /dev/null"
+            provider.getSetDefaultAccessRightsRecursivelyCommand(archive.serverDirectory, context).ifPresent { String command ->
+                unpack += "; ( ${command} ) > /dev/null"
+            }
+            if (archive.upload) {
+                provider.getSetDefaultAccessRightsCommand(archive.remoteArchive, context).ifPresent { String command ->
+                    script << "( ${command} ) > /dev/null".toString()
                 }
-                provider.checkDirectory(dstAnalysisToolsDirectory, context, true)
-                def linkCommand = "ln -s ${analysisToolsServerDir.getAbsolutePath()}/${subFolderOnRemote} ${dstAnalysisToolsDirectory.absolutePath}/${subFolder.getName()}"
-                getInstance().execute(linkCommand, true)
+                script << "mkdir -p ${serverDirectory} && { ${unpack}; }".toString()
+            } else {
+                script << "[[ -d ${serverDirectory} ]] || { ${unpack}; }".toString()
+            }
+            script << "ln -s ${serverDirectory}/${archive.subFolderOnRemote} ${dstAnalysisToolsDirectory.absolutePath}/${archive.subFolder.getName()}".toString()
+            script << "[[ -d ${serverDirectory} ]] || echo ${serverDirectory}".toString()
         }
+        return script.join("\n")
     }
 
     /**
@@ -862,6 +976,7 @@ abstract class ExecutionService implements BEExecutionService {
         final File repeatCallFile = rService.getRepeatableJobCallsFile(context)
         provider.writeTextFile(realCallFile, realCalls.toString(), context)
         provider.writeTextFile(repeatCallFile, repeatCalls.toString(), context)
+        context.getJobStateJournal().flush()
         rService.writeJobInfoFile(context)
     }
 
@@ -909,6 +1024,8 @@ abstract class ExecutionService implements BEExecutionService {
 
     String[] loadTextFile(File file) {}
 
+    Reader openTextFileReader(File file) {}
+
     List<File> listFiles(File file, List<String> filters) {}
 
     List<File> listFiles(List<File> file, List<String> filters) {}
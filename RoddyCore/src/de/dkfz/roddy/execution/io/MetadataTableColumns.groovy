@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import groovy.transform.CompileStatic
+
+/**
+ * Column store for the content of a metadata table. Each column is dictionary encoded: the values are kept once in
+ * the order of their first occurrence and the rows refer to them by their code. The rows of a value can be looked up
+ * with an index, which is built per column on first use.
+ *
+ * The store is not modified after construction, so it can be shared by a table and all of its subsets.
+ */
+@CompileStatic
+class MetadataTableColumns {
+
+    private final List<String> columnNames
+
+    private final Map<String, Integer> columnIndices = [:]
+
+    private final int rowCount
+
+    /**
+     * The codes of each column by row: codes[column][row]
+     */
+    private final int[][] codes
+
+    private final List<List<String>> dictionaries = []
+
+    private final List<Map<String, Integer>> codesByValue = []
+
+    /**
+     * The ascending row numbers of each column by code: rowsByCode[column][code]. Built on first use.
+     */
+    private final int[][][] rowsByCode
+
+    /**
+     * @param columnNames The names of the columns in their order
+     * @param rows The values of each row in the order of the columns
+     */
+    MetadataTableColumns(List<String> columnNames, List<String[]> rows) {
+        this.columnNames = new ArrayList<String>(columnNames)
+        this.rowCount = rows.size()
+        this.codes = new int[columnNames.size()][]
+        this.rowsByCode = new int[columnNames.size()][][]
+
+        for (int column = 0; column < columnNames.size(); column++) {
+            columnIndices[columnNames[column]] = column
+            List<String> dictionary = []
+            Map<String, Integer> codeByValue = new HashMap<>()
+            int[] columnCodes = new int[rowCount]
+            for (int row = 0; row < rowCount; row++) {
+                String value = rows[row][column]
+                Integer code = codeByValue[value]
+                if (code == null) {
+                    code = dictionary.size()
+                    dictionary << value
+                    codeByValue[value] = code
+                }
+                columnCodes[row] = code
+            }
+            codes[column] = columnCodes
+            dictionaries << dictionary
+            codesByValue << codeByValue
+        }
+    }
+
+    List<String> getColumnNames() {
+        return Collections.unmodifiableList(columnNames)
+    }
+
+    int getRowCount() {
+        return rowCount
+    }
+
+    /**
+     * @return The position of the column or -1, if the column does not exist
+     */
+    int columnIndex(String columnName) {
+        Integer column = columnIndices[columnName]
+        return column != null ? column : -1
+    }
+
+    int code(int column, int row) {
+        return codes[column][row]
+    }
+
+    /**
+     * @return The code of the value in the column or -1, if no row has the value
+     */
+    int codeOf(int column, String value) {
+        Integer code = codesByValue[column][value]
+        return code != null ? code : -1
+    }
+
+    String valueOf(int column, int code) {
+        return dictionaries[column][code]
+    }
+
+    String value(int column, int row) {
+        return valueOf(column, codes[column][row])
+    }
+
+    /**
+     * @return The number of distinct values in the column
+     */
+    int dictionarySize(int column) {
+        return dictionaries[column].size()
+    }
+
+    /**
+     * @return The ascending row numbers with the code in the column. The array must not be modified.
+     */
+    int[] rowsWithCode(int column, int code) {
+        return getIndex(column)[code]
+    }
+
+    private synchronized int[][] getIndex(int column) {
+        if (rowsByCode[column] == null) {
+            int[] columnCodes = codes[column]
+            int[] counts = new int[dictionarySize(column)]
+            for (int row = 0; row < rowCount; row++)
+                counts[columnCodes[row]]++
+            int[][] index = new int[counts.length][]
+            for (int code = 0; code < counts.length; code++)
+                index[code] = new int[counts[code]]
+            int[] filled = new int[counts.length]
+            for (int row = 0; row < rowCount; row++) {
+                int code = columnCodes[row]
+                index[code][filled[code]++] = row
+            }
+            rowsByCode[column] = index
+        }
+        return rowsByCode[column]
+    }
+
+    /**
+     * @return A new map with the values of the row by column name
+     */
+    Map<String, String> row(int row) {
+        Map<String, String> record = new LinkedHashMap<>()
+        for (int column = 0; column < columnNames.size(); column++)
+            record[columnNames[column]] = value(column, row)
+        return record
+    }
+}
@@ -26,7 +26,6 @@ import de.dkfz.roddy.tools.LoggerWrapper
 import de.dkfz.roddy.tools.RoddyConversionHelperMethods
 import de.dkfz.roddy.tools.RoddyIOHelperMethods
 import net.schmizz.sshj.SSHClient
-import net.schmizz.sshj.common.IOUtils
 import net.schmizz.sshj.connection.channel.OpenFailException
 import net.schmizz.sshj.connection.channel.direct.Session
 import net.schmizz.sshj.sftp.*
@@ -37,7 +36,17 @@ import net.schmizz.sshj.xfer.scp.SCPDownloadClient
 import net.schmizz.sshj.xfer.scp.SCPFileTransfer
 import org.apache.commons.io.filefilter.WildcardFileFilter
 
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
 import java.util.concurrent.Semaphore
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.concurrent.locks.Lock
 import java.util.concurrent.locks.ReentrantLock
 
@@ -69,15 +78,19 @@ class SSHExecutionService extends RemoteExecutionService {
 
         public final String method
 
-        private final Semaphore sshSemaphore = new Semaphore(8)
+        /**
+         * Limits the number of concurrently open channels (sessions, sftp requests) on this connection.
+         */
+        private final Semaphore sshSemaphore
 
         private final int id
 
-        SSHPoolConnectionSet(int id, String user, String host, String method) {
+        SSHPoolConnectionSet(int id, String user, String host, String method, int maxChannels = DEFAULT_MAX_CHANNELS_PER_HOST) {
             this.user = user
             this.host = host
             this.method = method
             this.id = id
+            this.sshSemaphore = new Semaphore(Math.max(1, maxChannels), true)
         }
 
         boolean check() {
@@ -207,6 +220,13 @@ class SSHExecutionService extends RemoteExecutionService {
         void release() {
             sshSemaphore.release()
         }
+
+        /**
+         * Open a new channel for a single command. The caller has to hold a permit.
+         */
+        Session startSession() {
+            return client.startSession()
+        }
     }
 
     private static final class ConnectionPool {
@@ -225,12 +245,14 @@ class SSHExecutionService extends RemoteExecutionService {
                 sshMethod = Constants.APP_PROPERTY_EXECUTION_SERVICE_AUTH_METHOD_PWD
 
 
+            int maxChannels = getMaxChannelsPerHost()
+
             List<SSHPoolConnectionSet> tempEntries = new LinkedList<>()
             String[] sshHosts = appConf.getOrSetApplicationProperty(Roddy.getRunMode(), Constants.APP_PROPERTY_EXECUTION_SERVICE_HOSTS).split(SPLIT_COMMA)
             int i = 0
             for (String host : sshHosts) {
                 logger.always("Opening SSH connection: $sshUser@$host via $sshMethod")
-                SSHPoolConnectionSet cs = new SSHPoolConnectionSet(i++, sshUser, host, sshMethod)
+                SSHPoolConnectionSet cs = new SSHPoolConnectionSet(i++, sshUser, host, sshMethod, maxChannels)
                 cs.initialize()
                 if (cs.check())
                     tempEntries << cs
@@ -296,10 +318,59 @@ class SSHExecutionService extends RemoteExecutionService {
         }
     }
 
+    /**
+     * The default number of commands, which may run in parallel on a single SSH connection.
+     */
+    public static final int DEFAULT_MAX_CHANNELS_PER_HOST = 8
+
     private static Lock lock = new ReentrantLock()
 
     private static final ConnectionPool connectionPool = new ConnectionPool()
 
+    /**
+     * Executes asynchronous commands and parallel command batches.
+     */
+    private static final ExecutorService commandExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger(0)
+
+        @Override
+        Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "SSHExecutionService::_execute()-" + threadCount.incrementAndGet())
+            thread.setDaemon(true)
+            return thread
+        }
+    })
+
+    /**
+     * Closes sessions of commands, which exceed the configured command timeout.
+     */
+    private static final ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "SSHExecutionService::timeoutScheduler")
+            thread.setDaemon(true)
+            return thread
+        }
+    })
+
+    /**
+     * The exit code reported for commands which were cancelled due to a timeout. Same as for the coreutils timeout command.
+     */
+    public static final int EXIT_CODE_TIMEOUT = 124
+
+    static int getMaxChannelsPerHost() {
+        String value = Roddy.applicationConfiguration.getOrSetApplicationProperty(Roddy.getRunMode(), Constants.APP_PROPERTY_EXECUTION_SERVICE_MAX_CHANNELS_PER_HOST, DEFAULT_MAX_CHANNELS_PER_HOST.toString())
+        return Math.max(1, RoddyConversionHelperMethods.toInt(value, DEFAULT_MAX_CHANNELS_PER_HOST))
+    }
+
+    /**
+     * The timeout in seconds for a single remote command. Values <= 0 disable the timeout.
+     */
+    int getCommandTimeout() {
+        String value = Roddy.applicationConfiguration.getOrSetApplicationProperty(Roddy.getRunMode(), Constants.APP_PROPERTY_EXECUTION_SERVICE_COMMAND_TIMEOUT, "0")
+        return RoddyConversionHelperMethods.toInt(value, 0)
+    }
+
     /**
      * Stores a map of temporary files with the path to their remote sources.
      */
@@ -343,7 +414,7 @@ class SSHExecutionService extends RemoteExecutionService {
         return false
     }
 
-    private SSHPoolConnectionSet waitForService() {
+    protected SSHPoolConnectionSet waitForService() {
         if (!connectionPool.check())
             connectionPool.initialize()
         return connectionPool.get()
@@ -362,31 +433,113 @@ class SSHExecutionService extends RemoteExecutionService {
     // claims, that the method does not override it's base method.
     // That is, why we keep it in but only as a comment.
     //    @Override
-    synchronized ExecutionResult _execute(String command, boolean waitFor = true, boolean ignoreError = false, OutputStream outputStream = null) {
+    ExecutionResult _execute(String command, boolean waitFor = true, boolean ignoreError = false, OutputStream outputStream = null) {
         SSHPoolConnectionSet connectionSet = waitForService()
-        SSHClient sshClient = connectionSet.client
 
         if (waitFor) {
+            // The permit is held for the whole lifetime of the session. Commands on the same connection run in parallel
+            // on separate channels up to the configured per host limit.
             connectionSet.acquire()
-            Session session = sshClient.startSession()
-            Session.Command cmd
-
             try {
-                cmd = session.exec(command)
+                return executeOnChannel(connectionSet, command, ignoreError)
             } finally {
                 connectionSet.release()
             }
+        } else {
+            commandExecutor.submit(new Runnable() {
+                @Override
+                void run() {
+                    connectionSet.acquire()
+                    try {
+                        executeOnChannel(connectionSet, command, ignoreError)
+                    } catch (Exception ex) {
+                        logger.warning("Asynchronous command failed: ${ex.message}")
+                        logger.rare("Failed command was: '${command}'")
+                    } finally {
+                        connectionSet.release()
+                    }
+                }
+            })
+            return new ExecutionResult(true, 0, [], "")
+        }
+    }
+
+    /**
+     * Execute several independent commands in parallel. The commands are distributed over all pooled connections and
+     * run on separate channels. The per host channel limit still applies, so larger batches are queued.
+     *
+     * @param commands A list of commands which do not depend on each other.
+     * @return The results in the order of the commands.
+     */
+    List<ExecutionResult> executeInParallel(List<String> commands) {
+        List<Future<ExecutionResult>> futures = commands.collect {
+            String command ->
+                commandExecutor.submit(new Callable<ExecutionResult>() {
+                    @Override
+                    ExecutionResult call() throws Exception {
+                        return execute(command, true)
+                    }
+                })
+        }
+        return futures.collect { Future<ExecutionResult> it -> it.get() }
+    }
+
+    /**
+     * Copy several independent files in parallel. Each transfer uses an SFTP client of the connection pool, so the
+     * number of concurrent transfers is limited like the number of commands.
+     *
+     * @return true, if all files were copied
+     */
+    @Override
+    boolean copyFilesInParallel(Map<File, File> filesByTarget) {
+        List<Future<Boolean>> futures = filesByTarget.collect {
+            File _out, File _in ->
+                commandExecutor.submit(new Callable<Boolean>() {
+                    @Override
+                    Boolean call() throws Exception {
+                        return copyFile(_in, _out)
+                    }
+                })
+        }
+        return futures.collect { Future<Boolean> it -> it.get() }.every()
+    }
+
+    private ExecutionResult executeOnChannel(SSHPoolConnectionSet connectionSet, String command, boolean ignoreError) {
+        Session session = connectionSet.startSession()
+        Session.Command cmd = null
+        ScheduledFuture timeoutGuard = null
+        AtomicBoolean timedOut = new AtomicBoolean(false)
+        int timeout = getCommandTimeout()
+
+        try {
+            cmd = session.exec(command)
+            if (timeout > 0) {
+                timeoutGuard = timeoutScheduler.schedule(new Runnable() {
+                    @Override
+                    void run() {
+                        timedOut.set(true)
+                        try {
+                            session.close()
+                        } catch (Exception ex) {
+                            logger.rare("Could not close timed out SSH session. " + ex)
+                        }
+                    }
+                }, timeout, TimeUnit.SECONDS)
+            }
+
             String content = readStream(cmd.getInputStream())
 
             cmd.join()
-            session.close()
+            timeoutGuard?.cancel(false)
+
+            if (timedOut.get())
+                return createTimeoutResult(command, timeout)
 
             // Get the exit status of the process. In case of things like caught signals (SEGV-Segmentation fault), the value is null and will be set to 256.
             Integer exitStatus = cmd.getExitStatus()
             if (exitStatus == null) exitStatus = 256
 
             List<String> output = new LinkedList<String>()
-//            output << "" + exitStatus;
 
             if (exitStatus > 0) {
                 if (ignoreError) {
@@ -407,34 +560,26 @@ class SSHExecutionService extends RemoteExecutionService {
             }
 
             return new ExecutionResult(exitStatus == 0, exitStatus, output, "0")
-        } else {
-            Runnable runnable = new Runnable() {
-
-                @Override
-                void run() {
-//                  long id = fireExecutionStartedEvent(command)
-                    // Append a newgrp (Philip: better "newgrp -"!) to each command, so that all command context in the proper group context.
-                    connectionSet.acquire()
-                    Session session = sshClient.startSession()
-                    Session.Command cmd
-                    try {
-                        cmd = session.exec(command)
-                    } finally {
-                        connectionSet.release()
-                    }
-                    String content = IOUtils.readFully(cmd.getInputStream()).toString()
-                    session.close()
-//                  measureStop(id, "async command  [sshclient:${set.id}] '" + RoddyIOHelperMethods.truncateCommand(command, Roddy.getOrSetApplicationProperty("commandLogTruncate", '20').toInteger()) + "'");
-//                  fireExecutionStoppedEvent(id, command)
-                }
+        } catch (Exception ex) {
+            if (timedOut.get())
+                return createTimeoutResult(command, timeout)
+            throw ex
+        } finally {
+            timeoutGuard?.cancel(false)
+            try {
+                session.close()
+            } catch (Exception ex) {
+                logger.rare("Could not close SSH session. " + ex)
             }
-            Thread thread = new Thread(runnable)
-            thread.setName("SSHExecutionService::_execute()")
-            thread.start()
-            return new ExecutionResult(true, 0, [], "")
         }
     }
 
+    private static ExecutionResult createTimeoutResult(String command, int timeout) {
+        logger.severe("Command was cancelled after the timeout of ${timeout} s: " + RoddyIOHelperMethods.truncateCommand(command,
+                Roddy.applicationConfiguration.getOrSetApplicationProperty("commandLogTruncate", '80').toInteger()))
+        return new ExecutionResult(false, EXIT_CODE_TIMEOUT, [], "0")
+    }
+
 //    @Override
 //    public ExecutionResult execute(String string, boolean waitFor = true) {
 //        ExecutionResult result = _execute(string, waitFor);
@@ -730,6 +875,11 @@ class SSHExecutionService extends RemoteExecutionService {
         }
     }
 
+    @Override
+    Reader openTextFileReader(File file) {
+        return transferFileFromRemoteToLocal(file, "roddy_sshserver_down", ".tmp").newReader()
+    }
+
     @Override
     List<File> listFiles(File file, List<String> filters) {
         try {
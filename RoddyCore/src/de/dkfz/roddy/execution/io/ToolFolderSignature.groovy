@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import de.dkfz.roddy.tools.PersistentCaches
+import groovy.transform.CompileStatic
+
+import java.nio.file.Files
+import java.nio.file.attribute.PosixFilePermission
+import java.nio.file.attribute.PosixFilePermissions
+
+/**
+ * The file list of a tool folder with the size, modification time and permissions of each entry. It is stored next
+ * to the compressed folder. If the signature of the folder did not change, the archive and its content md5 sum can
+ * be reused without reading the files.
+ */
+@CompileStatic
+class ToolFolderSignature {
+
+    /**
+     * One line per file or directory, sorted by the relative path
+     */
+    final String text
+
+    /**
+     * false, if an entry was modified too recently to rely on the signature
+     */
+    final boolean stable
+
+    private ToolFolderSignature(String text, boolean stable) {
+        this.text = text
+        this.stable = stable
+    }
+
+    static ToolFolderSignature of(File folder) {
+        StringBuilder text = new StringBuilder()
+        text << "./\t0\t" << folder.lastModified() << "\t" << permissions(folder) << "\n"
+        long newestModification = Math.max(folder.lastModified(), appendEntries(text, folder, ""))
+        return new ToolFolderSignature(text.toString(), PersistentCaches.isSettled(newestModification))
+    }
+
+    /**
+     * @return The newest modification time of the entries
+     */
+    private static long appendEntries(StringBuilder text, File directory, String relativePath) {
+        long newestModification = 0
+        File[] children = directory.listFiles()
+        if (children == null)
+            return newestModification
+        for (File child : children.sort { File it -> it.name }) {
+            String childPath = relativePath + child.name
+            boolean isDirectory = child.isDirectory()
+            long lastModified = child.lastModified()
+            text << childPath << (isDirectory ? "/" : "") << "\t" << (isDirectory ? 0 : child.length()) << "\t" << lastModified << "\t" << permissions(child) << "\n"
+            newestModification = Math.max(newestModification, lastModified)
+            if (isDirectory)
+                newestModification = Math.max(newestModification, appendEntries(text, child, childPath + "/"))
+        }
+        return newestModification
+    }
+
+    private static String permissions(File file) {
+        try {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file.toPath())
+            return PosixFilePermissions.toString(permissions)
+        } catch (UnsupportedOperationException ignored) {
+            return (file.canRead() ? "r" : "-") + (file.canWrite() ? "w" : "-") + (file.canExecute() ? "x" : "-")
+        }
+    }
+
+    /**
+     * @return true, if the file contains this signature
+     */
+    boolean matches(File signatureFile) {
+        return signatureFile.exists() && signatureFile.text == text
+    }
+}
@@ -214,6 +214,11 @@ class BashCommandSet extends ShellCommandSet {
         return "cat ${f.absolutePath}"
     }
 
+    @Override
+    String getReadOutBase64EncodedFileFromOffsetCommand(File f, long offset) {
+        return "test -f ${f.absolutePath} && tail -c +${offset + 1} ${f.absolutePath} | base64"
+    }
+
     @Override
     String getReadLineOfFileCommand(File file, int lineIndex) {
         return "tail -n +${lineIndex + 1} ${file.absolutePath} | head -n 1"
@@ -329,6 +334,33 @@ class BashCommandSet extends ShellCommandSet {
         return "lockfile ${path}~; echo \"${line}\" >> ${path}; rm -rf ${path}~"
     }
 
+    /**
+     * Each text is passed as a quoted here-document. head writes exactly the bytes of the text, as the here-document
+     * always ends with a newline.
+     */
+    @Override
+    String getWriteTextFilesScript(Map<File, String> textsByFile, List<String> followUpCommands) {
+        StringBuilder script = new StringBuilder("failed=0\n")
+        textsByFile.each { File file, String text ->
+            String delimiter = "RODDY_EOF"
+            for (int i = 1; text.contains(delimiter); i++)
+                delimiter = "RODDY_EOF_" + i
+            script << "head -c ${text.getBytes("UTF-8").length} <<'${delimiter}' > ${file.absolutePath} || failed=1\n"
+            script << text << "\n" << delimiter << "\n"
+        }
+        for (String command : followUpCommands)
+            script << command << " || failed=1\n"
+        script << "exit \$failed\n"
+        return script.toString()
+    }
+
+    @Override
+    String getLockedAppendLinesToFileCommand(File file, List<String> lines) {
+        String path = file.absolutePath
+        String echoes = lines.collect { String line -> "echo \"${line}\"" }.join("; ")
+        return "lockfile ${path}~; { ${echoes}; } >> ${path}; rm -rf ${path}~"
+    }
+
     @Override
     String getDefaultUMask() {
         return "007"
@@ -384,4 +416,32 @@ class BashCommandSet extends ShellCommandSet {
     String getFileSizeCommand(File file) {
         return "stat --printf='%s' ${file.absolutePath}"
     }
+
+    @Override
+    String getProbeCommand(List<File> files, List<ProbeType> probeTypes) {
+        return files.collect { File file ->
+            String path = doubleQuote(file.absolutePath)
+            (probeTypes.collect { ProbeType type -> getProbeCommand(path, type) } + ["echo"]).join("; ")
+        }.join("; ")
+    }
+
+    private String getProbeCommand(String path, ProbeType type) {
+        String printResult = "&& printf '${TRUE} ' || printf '${FALSE} '"
+        switch (type) {
+            case ProbeType.FILE_EXISTS:
+                return "[[ -f ${path} ]] ${printResult}"
+            case ProbeType.DIRECTORY_EXISTS:
+                return "[[ -d ${path} ]] ${printResult}"
+            case ProbeType.READABLE:
+                return "[[ -e ${path} && -r ${path} ]] ${printResult}"
+            case ProbeType.WRITABLE:
+                return "[[ -e ${path} && -w ${path} ]] ${printResult}"
+            case ProbeType.EXECUTABLE:
+                return "[[ -e ${path} && -x ${path} ]] ${printResult}"
+            case ProbeType.FILE_SIZE:
+                return "stat --printf='%s ' ${path} 2> /dev/null || printf -- '-1 '"
+            default:
+                throw new IllegalArgumentException("Unknown probe type ${type}")
+        }
+    }
 }
@@ -235,6 +235,81 @@ class FileSystemAccessProvider {
         }
     }
 
+    /**
+     * The maximum number of files, which are checked with a single probe command. Larger lists are split up to keep
+     * the command line length in a sane range.
+     */
+    public static final int MAX_FILES_PER_PROBE = 250
+
+    /**
+     * Run several file system tests for a list of files in one go. Instead of one command per test and file, a
+     * single composite command is executed and its output is parsed. This saves a lot of round trips for remote
+     * execution services.
+     *
+     * If the output of the composite command cannot be parsed, the tests are run one by one. Services which can
+     * query file attributes themselves answer the tests like the single file queries do.
+     *
+     * @param files         The files to check. Duplicates and null entries are ignored.
+     * @param probeTypes    The tests to run for every file
+     * @return A map with one ProbeResult per file
+     */
+    Map<File, ProbeResult> probe(List<File> files, Set<ProbeType> probeTypes) {
+        List<File> uniqueFiles = files.findAll { File it -> it != null }.unique(false)
+        List<ProbeType> orderedTypes = (probeTypes as List<ProbeType>).sort(false)
+        Map<File, ProbeResult> results = new LinkedHashMap<>()
+
+        if (!orderedTypes) {
+            uniqueFiles.each { File it -> results[it] = new ProbeResult(it) }
+            return results
+        }
+
+        if (ExecutionService.instance.canQueryFileAttributes()) {
+            uniqueFiles.each { File it -> results[it] = probeSingleFile(it, orderedTypes) }
+            return results
+        }
+
+        for (List<File> chunk in uniqueFiles.collate(MAX_FILES_PER_PROBE)) {
+            ExecutionResult er = ExecutionService.instance.execute(commandSet.getProbeCommand(chunk, orderedTypes))
+            List<String> lines = er.successful ? er.resultLines.findAll { String it -> it.trim() } : []
+            if (lines.size() == chunk.size()) {
+                for (int i = 0; i < chunk.size(); i++)
+                    results[chunk[i]] = parseProbeLine(chunk[i], lines[i], orderedTypes)
+            } else {
+                logger.sometimes("Could not parse the output of a batched file system probe, falling back to single tests.")
+                chunk.each { File it -> results[it] = probeSingleFile(it, orderedTypes) }
+            }
+        }
+        return results
+    }
+
+    private ProbeResult parseProbeLine(File file, String line, List<ProbeType> probeTypes) {
+        String[] tokens = line.trim().split("\\s+")
+        ProbeResult result = new ProbeResult(file)
+        for (int i = 0; i < probeTypes.size(); i++) {
+            String token = i < tokens.length ? tokens[i] : null
+            if (probeTypes[i] == ProbeType.FILE_SIZE)
+                result.fileSize = token?.isLong() ? token.toLong() : -1L
+            else
+                result.set(probeTypes[i], token == commandSet.readabilityTestPositiveResult)
+        }
+        return result
+    }
+
+    protected ProbeResult probeSingleFile(File file, List<ProbeType> probeTypes) {
+        ProbeResult result = new ProbeResult(file)
+        for (ProbeType type in probeTypes) {
+            switch (type) {
+                case ProbeType.FILE_EXISTS: result.set(type, fileExists(file)); break
+                case ProbeType.DIRECTORY_EXISTS: result.set(type, directoryExists(file)); break
+                case ProbeType.READABLE: result.set(type, isReadable(file)); break
+                case ProbeType.WRITABLE: result.set(type, isWritable(file)); break
+                case ProbeType.EXECUTABLE: result.set(type, isExecutable(file)); break
+                case ProbeType.FILE_SIZE: result.fileSize = fileSize(file); break
+            }
+        }
+        return result
+    }
+
     /**
      * Lists all directory in a directory.
      * @param f
@@ -339,7 +414,21 @@ class FileSystemAccessProvider {
         }
     }
 
+    /**
+     * Checks (and creates) several directories with a single command.
+     * If the output of the command cannot be parsed, the directories are checked one by one.
+     */
     boolean checkDirectories(List<File> files, ExecutionContext context, boolean createMissing) {
+        if (files.size() > 1) {
+            List<String> commands = files.collect { File f -> getCheckDirectoryCommand(f, context, createMissing) }
+            ExecutionResult er = ExecutionService.instance.execute(commands.join(" ; "))
+
+            // Creating directories may also print empty lines, only the test results are relevant.
+            List<String> lines = er.resultLines.findAll { String it -> it.trim() }
+            if (lines.size() == files.size())
+                return lines.every { String it -> it.trim() == commandSet.readabilityTestPositiveResult }
+        }
+
         boolean result = true
         for (File f in files) {
             result &= checkDirectory(f, context, createMissing)
@@ -371,17 +460,19 @@ class FileSystemAccessProvider {
      * @return true if the directory exists or false if not.
      */
     boolean checkDirectory(File f, ExecutionContext context, boolean createMissing) {
-        String cmd
+        ExecutionResult er = ExecutionService.instance.execute(getCheckDirectoryCommand(f, context, createMissing))
+        return (er.firstLine == commandSet.readabilityTestPositiveResult)
+    }
+
+    private String getCheckDirectoryCommand(File f, ExecutionContext context, boolean createMissing) {
         if (createMissing) {
             String outputAccessRightsForDirectories = context.outputDirectoryAccess
             String outputFileGroup = context.outputGroupString
-            cmd = commandSet.getCheckDirectoryCommand(f, true, outputFileGroup,
+            return commandSet.getCheckDirectoryCommand(f, true, outputFileGroup,
                     outputAccessRightsForDirectories)
         } else {
-            cmd = commandSet.getCheckDirectoryCommand(f)
+            return commandSet.getCheckDirectoryCommand(f)
         }
-        ExecutionResult er = ExecutionService.instance.execute(cmd)
-        return (er.firstLine == commandSet.readabilityTestPositiveResult)
     }
 
     boolean checkBaseFiles(BaseFile... filesToCheck) {
@@ -536,6 +627,66 @@ class FileSystemAccessProvider {
             throw new RuntimeException("Not implemented yet!");
     }
 
+    /**
+     * Write several text files with the default access rights. For remote services, the files are bundled into a
+     * single script, which is copied and executed on the remote site, instead of transferring each file on its own.
+     * @return true, if all files were written
+     */
+    boolean writeTextFiles(Map<File, String> textsByFile, ExecutionContext context) {
+        ExecutionService eService = ExecutionService.instance
+        if (!textsByFile)
+            return true
+        if (eService.isLocalService() || !eService.canCopyFiles())
+            return textsByFile.collect { File file, String text -> writeTextFile(file, text, context) }.every()
+
+        List<String> accessRightsCommands = textsByFile.keySet().collect { File file ->
+            getSetDefaultAccessRightsCommand(file, context).orElse(null)
+        }.findAll() as List<String>
+        String script = commandSet.getWriteTextFilesScript(textsByFile, accessRightsCommands)
+
+        File localScript = File.createTempFile("roddy_textfiles", ".sh")
+        File remoteScript = new File(textsByFile.keySet().first().parentFile, ".roddyTextFiles_${System.nanoTime()}.sh")
+        try {
+            localScript.setText(script, "UTF-8")
+            if (!eService.copyFile(localScript, remoteScript))
+                return false
+            boolean successful = eService.execute(commandSet.getExecuteScriptCommand(remoteScript), true).successful
+            eService.execute(commandSet.getRemoveFileCommand(remoteScript), false)
+            return successful
+        } finally {
+            localScript.delete()
+        }
+    }
+
+    /**
+     * Write a text file through a writer, so that large files do not need to be kept in memory. For remote services,
+     * the text is written to a temporary file, which is then transferred.
+     * @param writeText Called with the writer for the file
+     */
+    boolean writeTextFile(File file, Closure writeText, ExecutionContext context) {
+        return writeTextFile(file, writeText) &&
+                setDefaultAccessRights(file, context)
+    }
+
+    boolean writeTextFile(File file, Closure writeText) {
+        ExecutionService eService = ExecutionService.instance
+        if (eService.canWriteFiles()) {
+            File tempFile = File.createTempFile("roddy_textfile", ".tmp")
+            try {
+                tempFile.withWriter { Writer writer -> writeText(writer) }
+                return eService.copyFile(tempFile, file)
+            } finally {
+                tempFile.delete()
+            }
+        } else if (eService.isLocalService()) {
+            if (!file.getParentFile().exists())
+                file.getParentFile().mkdirs()
+            file.withWriter { Writer writer -> writeText(writer) }
+            return true
+        } else
+            throw new RuntimeException("Not implemented yet!");
+    }
+
     boolean writeBinaryFile(File file, Serializable serializable, ExecutionContext context) {
         writeBinaryFile(file, serializable) && setDefaultAccessRights(file, context)
     }
@@ -560,6 +711,21 @@ class FileSystemAccessProvider {
         }
     }
 
+    /**
+     * Copy several files by their target. Execution services which can transfer files themselves may copy them in
+     * parallel, otherwise the copy commands are executed in parallel.
+     * @return true, if all files were copied
+     */
+    boolean copyFiles(Map<File, File> filesByTarget) {
+        ExecutionService eService = ExecutionService.instance
+        if (eService.canCopyFiles()) {
+            return eService.copyFilesInParallel(filesByTarget)
+        } else {
+            List<String> commands = filesByTarget.collect { File _out, File _in -> commandSet.getCopyFileCommand(_in, _out) }
+            return eService.executeInParallel(commands).every { ExecutionResult result -> result.successful }
+        }
+    }
+
     boolean moveFile(File _from, File _to, ExecutionContext context) {
         moveFile(_from, _to) && setDefaultAccessRights(_to, context)
     }
@@ -612,11 +778,20 @@ class FileSystemAccessProvider {
     }
 
     boolean setDefaultAccessRightsRecursively(File path, ExecutionContext context) {
+        return getSetDefaultAccessRightsRecursivelyCommand(path, context)
+                .map { ExecutionService.instance.execute(it, false).successful }
+                .orElse(true)
+    }
+
+    /**
+     * The command used by setDefaultAccessRightsRecursively, e.g. to combine it with other commands in a script.
+     */
+    Optional<String> getSetDefaultAccessRightsRecursivelyCommand(File path, ExecutionContext context) {
         if (context == null) {
-            return setAccessRightsRecursively(path, commandSet.defaultAccessRightsString,
+            return commandSet.getSetAccessRightsRecursivelyCommand(path, commandSet.defaultAccessRightsString,
                     commandSet.defaultAccessRightsString, myGroup)
         } else {
-            return setAccessRightsRecursively(path, context.outputDirectoryAccess,
+            return commandSet.getSetAccessRightsRecursivelyCommand(path, context.outputDirectoryAccess,
                     context.outputFileAccessRights, context.outputGroupString)
         }
     }
@@ -645,6 +820,15 @@ class FileSystemAccessProvider {
         return setAccessRights(file, context.outputFileAccessRights, context.outputGroupString)
     }
 
+    /**
+     * A command with the effect of setDefaultAccessRights, e.g. to combine it with other commands in a script.
+     */
+    Optional<String> getSetDefaultAccessRightsCommand(File file, ExecutionContext context) {
+        if (!context.isAccessRightsModificationAllowed())
+            return Optional.empty()
+        return commandSet.getSetAccessRightsCommand(file, context.outputFileAccessRights, context.outputGroupString)
+    }
+
     /**
      * Sets the rights for a file. Return true if the executed command finished successfully, otherwise false.
      * Only access rights that are provided as non-null strings are actually set. If all three access right strings
@@ -703,6 +887,65 @@ class FileSystemAccessProvider {
         }
     }
 
+    /**
+     * Load the part of a text file after the given byte offset, e.g. the lines appended since a previous read.
+     * @return The text or null, if the file could not be read
+     */
+    String loadTextFileFrom(File file, long offset) {
+        ExecutionService eService = ExecutionService.instance
+        try {
+            if (eService.isLocalService()) {
+                if (!file.exists())
+                    return null
+                RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")
+                try {
+                    if (offset >= randomAccessFile.length())
+                        return ""
+                    randomAccessFile.seek(offset)
+                    byte[] bytes = new byte[(int) (randomAccessFile.length() - offset)]
+                    randomAccessFile.readFully(bytes)
+                    return new String(bytes, "UTF-8")
+                } finally {
+                    randomAccessFile.close()
+                }
+            } else {
+                // The output is transferred base64 encoded. Splitting it into lines would hide, whether the last line
+                // is complete or still being written.
+                ExecutionResult result = eService.execute(commandSet.getReadOutBase64EncodedFileFromOffsetCommand(file, offset), true)
+                if (!result.successful)
+                    return null
+                return new String(result.resultLines.collect { String line -> line.trim() }.join("").decodeBase64(), "UTF-8")
+            }
+        } catch (Exception ex) {
+            logger.postAlwaysInfo("Error loading file '${file}'")
+            return null
+        }
+    }
+
+    /**
+     * Open a reader for a text file, so that large files do not need to be kept in memory. The caller has to close
+     * the reader.
+     * @return The reader or null, if the file could not be opened
+     */
+    Reader openTextFileReader(File file) {
+        ExecutionService eService = ExecutionService.instance
+        try {
+            if (eService.canReadFiles()) {
+                return eService.openTextFileReader(file)
+            }
+
+            if (eService.isLocalService()) {
+                return file.newReader()
+            } else {
+                return new StringReader(eService.execute(commandSet.
+                        getReadOutTextFileCommand(file), true).resultLines.join("\n"))
+            }
+        } catch (Exception ex) {
+            logger.postAlwaysInfo("Error loading file '${file}'")
+            return null
+        }
+    }
+
     String getLineOfFile(File file, int lineIndex) {
         try {
             return ExecutionService.instance.execute(commandSet.
@@ -735,9 +978,16 @@ class FileSystemAccessProvider {
         }
     }
 
+    /**
+     * The maximum length of a locked append command. Longer lists of lines are appended with several commands.
+     */
+    public static final int MAX_APPEND_COMMAND_LENGTH = 64 * 1024
+
     boolean appendLinesToFile(boolean atomic, File filename, List<String> lines, boolean blocking) {
         ExecutionService eService = ExecutionService.instance
-        if (eService.canWriteFiles()) {
+        if (atomic) { // Work very safe and use a lockfile, see appendLineToFile
+            return appendLinesToFileAtomically(filename, lines) == lines.size()
+        } else if (eService.canWriteFiles()) {
             return eService.appendLinesToFile(atomic, filename, lines, blocking)
         } else {
             lines.each {
@@ -747,6 +997,35 @@ class FileSystemAccessProvider {
         }
     }
 
+    /**
+     * Append the lines with locked append commands. Long lists are split into several commands. Appending stops at
+     * the first failed command, so a retry with the remaining lines does not append any line twice.
+     * @return The number of lines from the start of the list, which were appended
+     */
+    int appendLinesToFileAtomically(File filename, List<String> lines) {
+        ExecutionService eService = ExecutionService.instance
+        int appended = 0
+        try {
+            List<String> batch = []
+            int batchLength = 0
+            for (String line : lines) {
+                if (batch && batchLength + line.length() > MAX_APPEND_COMMAND_LENGTH) {
+                    if (!eService.execute(commandSet.getLockedAppendLinesToFileCommand(filename, batch)).successful)
+                        return appended
+                    appended += batch.size()
+                    batch = []
+                    batchLength = 0
+                }
+                batch << line
+                batchLength += line.length() + 10 // The echo command around the line
+            }
+            if (batch && eService.execute(commandSet.getLockedAppendLinesToFileCommand(filename, batch)).successful)
+                appended += batch.size()
+        } catch (Exception ex) {
+            logger.postAlwaysInfo("Error appending to file '${filename}'")
+        }
+        return appended
+    }
 
     boolean appendLineToFile(boolean atomic, File filename, String line, boolean blocking) {
         try {
@@ -11,8 +11,11 @@ import de.dkfz.roddy.knowledge.files.BaseFile;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Dummy file system info provider which is used in lean initialization mode.
@@ -60,11 +63,37 @@ public class NoNoFileSystemAccessProvider extends FileSystemAccessProvider {
         return true;
     }
 
+    /**
+     * Answers all tests positively without touching the file system. The file sizes are unknown (-1).
+     */
+    @Override
+    public Map<File, ProbeResult> probe(List<File> files, Set<ProbeType> probeTypes) {
+        Map<File, ProbeResult> results = new LinkedHashMap<>();
+        for (File file : files) {
+            if (file == null || results.containsKey(file))
+                continue;
+            ProbeResult result = new ProbeResult(file);
+            for (ProbeType type : probeTypes) {
+                if (type == ProbeType.FILE_SIZE)
+                    result.setFileSize(-1L);
+                else
+                    result.set(type, true);
+            }
+            results.put(file, result);
+        }
+        return results;
+    }
+
     @Override
     public boolean checkDirectory(File f, ExecutionContext context, boolean createMissing) {
         return true;
     }
 
+    @Override
+    public boolean checkDirectories(List<File> files, ExecutionContext context, boolean createMissing) {
+        return true;
+    }
+
     @Override
     public File getUserDirectory() {
         return new File("/virtualhomedrive/nouser");
@@ -130,6 +159,11 @@ public class NoNoFileSystemAccessProvider extends FileSystemAccessProvider {
         return true;
     }
 
+    @Override
+    public int appendLinesToFileAtomically(File filename, List<String> lines) {
+        return lines.size();
+    }
+
     @Override
     public boolean appendLineToFile(boolean atomic, File filename, String line, boolean blocking) {
         return true;
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2016 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io.fs
+
+import groovy.transform.CompileStatic
+
+/**
+ * Holds the results of a batched file system probe for a single file.
+ * Probe types which were not requested are reported as null.
+ */
+@CompileStatic
+class ProbeResult {
+    final File file
+
+    private final Map<ProbeType, Boolean> tests = new EnumMap<>(ProbeType)
+
+    private Long fileSize
+
+    ProbeResult(File file) {
+        this.file = file
+    }
+
+    void set(ProbeType type, boolean value) {
+        tests[type] = value
+    }
+
+    void setFileSize(Long fileSize) {
+        this.fileSize = fileSize
+    }
+
+    Boolean get(ProbeType type) {
+        return tests[type]
+    }
+
+    Boolean getFileExists() { return tests[ProbeType.FILE_EXISTS] }
+
+    Boolean getDirectoryExists() { return tests[ProbeType.DIRECTORY_EXISTS] }
+
+    Boolean getReadable() { return tests[ProbeType.READABLE] }
+
+    Boolean getWritable() { return tests[ProbeType.WRITABLE] }
+
+    Boolean getExecutable() { return tests[ProbeType.EXECUTABLE] }
+
+    /**
+     * @return The file size in bytes or -1, if the size could not be determined.
+     */
+    Long getFileSize() { return fileSize }
+
+    @Override
+    String toString() {
+        return "ProbeResult{file=${file}, tests=${tests}, fileSize=${fileSize}}"
+    }
+}
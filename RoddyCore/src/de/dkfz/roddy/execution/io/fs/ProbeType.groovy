@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2016 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io.fs
+
+import groovy.transform.CompileStatic
+
+/**
+ * The file system tests which can be combined into a single batched probe.
+ * See FileSystemAccessProvider.probe()
+ */
+@CompileStatic
+enum ProbeType {
+    FILE_EXISTS,
+    DIRECTORY_EXISTS,
+    READABLE,
+    WRITABLE,
+    EXECUTABLE,
+    FILE_SIZE
+}
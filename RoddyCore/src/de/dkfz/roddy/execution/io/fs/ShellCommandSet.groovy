@@ -60,6 +60,12 @@ abstract class ShellCommandSet {
 
     abstract String getReadOutTextFileCommand(File f)
 
+    /**
+     * Read the file starting at the given byte offset. The bytes are printed base64 encoded, so that the output can
+     * be decoded exactly, even if it does not end with a newline. The command fails, if the file does not exist.
+     */
+    abstract String getReadOutBase64EncodedFileFromOffsetCommand(File f, long offset)
+
     abstract String getReadLineOfFileCommand(File file, int lineIndex)
 
     abstract String getListDirectoriesInDirectoryCommand(File file)
@@ -121,6 +127,14 @@ abstract class ShellCommandSet {
 
     abstract String getLockedAppendLineToFileCommand(File file, String line)
 
+    abstract String getLockedAppendLinesToFileCommand(File file, List<String> lines)
+
+    /**
+     * A script, which writes the texts to the files and then runs the follow up commands, e.g. to set access rights.
+     * The script fails, if a file could not be written or a command failed.
+     */
+    abstract String getWriteTextFilesScript(Map<File, String> textsByFile, List<String> followUpCommands)
+
     abstract String getDefaultUMask()
 
     abstract String getDefaultAccessRightsString()
@@ -143,4 +157,15 @@ abstract class ShellCommandSet {
 
     abstract String getFileSizeCommand(File file)
 
+    /**
+     * Return a single command which runs all the requested tests for all the files.
+     * The command must print one line per file (in the order of files) with one whitespace separated token per test
+     * (in the order of probeTypes). Boolean tests print the readability test positive result or something else, the
+     * file size test prints the size in bytes or -1.
+     * @param files         The files to check
+     * @param probeTypes    The tests to run for every file
+     * @return A command string
+     */
+    abstract String getProbeCommand(List<File> files, List<ProbeType> probeTypes)
+
 }
@@ -453,7 +453,7 @@ class Job extends BEJob<BEJob, BEJobResult> {
                 jobInfoLine = null
             }
             if (jobInfoLine != null)
-                FileSystemAccessProvider.getInstance().appendLineToFile(true, executionContext.getRuntimeService().getJobStateLogFile(executionContext), jobInfoLine, false)
+                executionContext.getJobStateJournal().add(jobInfoLine)
         }
     }
 
@@ -493,7 +493,7 @@ class Job extends BEJob<BEJob, BEJobResult> {
                 // That is indeed funny here: on our cluster, the following line did not work without the forced toString(), however
                 // on our local machine it always worked! Don't know why it worked for PBS... Now we force-convert the parameters.
                 String jobInfoLine = jobStateInfoLine("" + res.job.getJobID(), code, millis, toolID)
-                FileSystemAccessProvider.getInstance().appendLineToFile(true, executionContext.getRuntimeService().getJobStateLogFile(executionContext), jobInfoLine, false)
+                executionContext.getJobStateJournal().add(jobInfoLine)
             } else {
                 logger.postSometimesInfo("Did not store info for job " + res.job.getJobName() + ", job id was null.")
             }
@@ -616,7 +616,12 @@ class Job extends BEJob<BEJob, BEJobResult> {
 
     void storeJobConfigurationFile(Configuration cfg) {
         String configText = ConfigurationConverter.convertAutomatically(context, cfg)
-        FileSystemAccessProvider.getInstance().writeTextFile(getParameterFile(), configText, context)
+        // Jobs submitted on hold read their parameter file after they were started, so the files are written together
+        // before (see Analysis.finallyStartJobsOfContext).
+        if (jobManager.isHoldJobsEnabled() && !(jobManager instanceof DirectSynchronousExecutionJobManager))
+            context.stageParameterFile(getParameterFile(), configText)
+        else
+            FileSystemAccessProvider.getInstance().writeTextFile(getParameterFile(), configText, context)
     }
 
     /**
@@ -688,27 +693,20 @@ class Job extends BEJob<BEJob, BEJobResult> {
 
         //TODO what about the case if no verifiable files where specified? Or if the know files count does not match
         for (BaseFile fp : filesToVerify) {
+            // A file without a path cannot be known. It is not counted, so the job will be rerun.
+            if (fp == null || fp.getPath() == null) {
+                if (isVerbosityHigh) dbgMessage << "\ta file to verify has no path set" << sep
+                continue
+            }
             //See if we know the file... so this way we can use the BaseFiles verification method.
-            List<BaseFile> knownFiles = context.getAllFilesInRun()
-            for (BaseFile bf : knownFiles) {
-                for (int i = 0; i < 3; i++) {
-                    if (fp == null || bf == null || fp.getAbsolutePath() == null || bf.getPath() == null)
-                        try {
-                            logger.severe("Taking a short nap because a file does not seem to be finished.")
-                            Thread.sleep(100)
-                        } catch (InterruptedException e) {
-                            e.printStackTrace()
-                        }
-                }
-                if (fp.getAbsolutePath().equals(bf.getPath().getAbsolutePath())) {
-                    if (!bf.isFileValid()) {
-                        fileUnverified = true
-                        if (isVerbosityHigh) dbgMessage << "\tfile " << bf.getPath().getName() << " could not be verified!" << sep
-                    }
-                    knownFilesCnt++
-                    break
-                }
+            BaseFile bf = context.getFileByPath(fp.getAbsolutePath())
+            if (bf == null)
+                continue
+            if (!bf.isFileValid()) {
+                fileUnverified = true
+                if (isVerbosityHigh) dbgMessage << "\tfile " << bf.getPath().getName() << " could not be verified!" << sep
             }
+            knownFilesCnt++
         }
         return new Tuple2<Boolean, Integer>(fileUnverified, knownFilesCnt)
     }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.jobs
+
+import de.dkfz.roddy.tools.LoggerWrapper
+import groovy.transform.CompileStatic
+
+/**
+ * Buffers the lines, which Roddy appends to the job state logfile of an execution context during submission. The
+ * lines are written with a single locked append, when the journal is flushed, instead of one locked append per job.
+ * Until then, readers of the logfile get the pending lines with getPendingLines.
+ *
+ * The order of the lines in the file does not matter, the job state log uses the latest timestamp of each job.
+ */
+@CompileStatic
+class JobStateJournal {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(JobStateJournal)
+
+    private final Closure<Integer> appendLines
+
+    private final List<String> pendingLines = []
+
+    /**
+     * @param appendLines Appends a list of lines to the logfile and returns the number of lines from the start of the
+     *                    list, which were appended
+     */
+    JobStateJournal(Closure<Integer> appendLines) {
+        this.appendLines = appendLines
+    }
+
+    synchronized void add(String line) {
+        pendingLines << line
+    }
+
+    synchronized List<String> getPendingLines() {
+        return new ArrayList<String>(pendingLines)
+    }
+
+    /**
+     * Append the pending lines to the logfile. Lines, which could not be appended, are kept for the next flush.
+     * @return false, if not all lines could be appended
+     */
+    boolean flush() {
+        List<String> lines
+        synchronized (this) {
+            if (!pendingLines)
+                return true
+            lines = new ArrayList<String>(pendingLines)
+            pendingLines.clear()
+        }
+        int appended = 0
+        try {
+            appended = appendLines(lines)
+        } catch (Exception ex) {
+            logger.warning("Could not append to the job state logfile: ${ex.message}")
+        }
+        if (appended < lines.size()) {
+            synchronized (this) {
+                pendingLines.addAll(0, lines.subList(appended, lines.size()))
+            }
+            return false
+        }
+        return true
+    }
+}
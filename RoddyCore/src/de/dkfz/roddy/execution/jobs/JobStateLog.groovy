@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.jobs
+
+import groovy.transform.CompileStatic
+
+/**
+ * Reads the job state logfile of an execution context. The lines of the file look like
+ *
+ *   jobID:code:timestamp[:toolID]
+ *
+ * The code is either a state name (STARTED, ABORTED, UNSTARTED, SUCCESSFUL, FAILED) or the exit code of the job. Lines
+ * are parsed one by one, so the file does not need to be kept in memory. For each job, only the latest entry is kept.
+ */
+@CompileStatic
+class JobStateLog {
+
+    static class Entry {
+        final String jobID
+        final String code
+        final JobState state
+        /**
+         * Seconds since the epoch or 0, if the line did not contain a timestamp
+         */
+        final long timestamp
+
+        Entry(String jobID, String code, long timestamp) {
+            this.jobID = jobID
+            this.code = code
+            this.state = parseStateCode(code)
+            this.timestamp = timestamp
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>()
+
+    static JobStateLog read(Reader reader) {
+        JobStateLog log = new JobStateLog()
+        BufferedReader bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader)
+        String line
+        while ((line = bufferedReader.readLine()) != null)
+            log.add(line)
+        return log
+    }
+
+    static JobStateLog read(Iterable<String> lines) {
+        JobStateLog log = new JobStateLog()
+        for (String line : lines)
+            log.add(line)
+        return log
+    }
+
+    /**
+     * Parse a line of the logfile. Entries with an older timestamp than the stored entry of the same job are ignored.
+     * @return false, if the line is not a valid entry
+     */
+    boolean add(String line) {
+        if (line == null || line.startsWith("null"))
+            return false //Skip null:N:...
+        int idEnd = line.indexOf(":")
+        if (idEnd <= 0)
+            return false
+        int codeEnd = line.indexOf(":", idEnd + 1)
+        String id = line.substring(0, idEnd)
+        String code = codeEnd < 0 ? line.substring(idEnd + 1) : line.substring(idEnd + 1, codeEnd)
+
+        long timestamp = 0
+        if (codeEnd >= 0) {
+            int timestampEnd = line.indexOf(":", codeEnd + 1)
+            String timestampText = timestampEnd < 0 ? line.substring(codeEnd + 1) : line.substring(codeEnd + 1, timestampEnd)
+            if (timestampText.isLong())
+                timestamp = timestampText.toLong()
+        }
+
+        //Override if previous timestamp is lower or equal
+        Entry previous = entries[id]
+        if (previous == null || previous.timestamp <= timestamp)
+            entries[id] = new Entry(id, code, timestamp)
+        return true
+    }
+
+    /**
+     * @return The latest entry for the job or null
+     */
+    Entry get(String jobID) {
+        return entries[jobID]
+    }
+
+    Map<String, Entry> getEntries() {
+        return Collections.unmodifiableMap(entries)
+    }
+
+    int size() {
+        return entries.size()
+    }
+
+    static JobState parseStateCode(String code) {
+        switch (code) {
+            case "STARTED":
+            case "57427":
+                return JobState.STARTED
+            case "UNSTARTED":
+                return JobState.UNSTARTED
+            case "ABORTED":
+            case "60000":
+                return JobState.ABORTED
+            case "SUCCESSFUL":
+            case "0":
+                return JobState.COMPLETED_SUCCESSFUL
+            case "FAILED":
+                return JobState.FAILED
+        }
+        // Any other exit code
+        if (code.isInteger())
+            return JobState.FAILED
+        return JobState.UNKNOWN
+    }
+}
@@ -11,7 +11,6 @@ import de.dkfz.roddy.Roddy
 import de.dkfz.roddy.config.*
 import de.dkfz.roddy.core.ExecutionContext
 import de.dkfz.roddy.core.ExecutionContextLevel
-import de.dkfz.roddy.core.Workflow
 import de.dkfz.roddy.execution.UnexpectedExecutionResultException
 import de.dkfz.roddy.execution.io.ExecutionService
 import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
@@ -20,6 +19,7 @@ import de.dkfz.roddy.execution.io.fs.Regex
 import de.dkfz.roddy.execution.io.fs.Wildcard
 import de.dkfz.roddy.execution.jobs.BEJob
 import de.dkfz.roddy.execution.jobs.BEJobResult
+import de.dkfz.roddy.knowledge.methods.MethodCallContext
 import de.dkfz.roddy.plugins.LibrariesFactory
 import de.dkfz.roddy.tools.LoggerWrapper
 import de.dkfz.roddy.tools.RoddyConversionHelperMethods
@@ -357,14 +357,14 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
             }
             Tuple2<File, FilenamePattern> fnresult = getFilename(this, _helper.selectionTag)
             if (fnresult) {
-                this.path = fnresult.x
+                updatePath(fnresult.x)
                 this.appliedFilenamePattern = fnresult.y
             }
         } else if (helper instanceof ConstructionHelperForSourceFiles) {
             ConstructionHelperForSourceFiles _helper = helper as ConstructionHelperForSourceFiles
 
             this.fileStageSettings = (FS) _helper.fileStageSettings
-            this.path = _helper.getPath()
+            updatePath(_helper.getPath())
             setAsSourceFile()
         } else {
             //Do not allow custom classes.
@@ -528,7 +528,17 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
      * @param path
      */
     void setPath(File path) {
+        updatePath(path)
+    }
+
+    /**
+     * Set the path and tell the context, so its path index stays valid.
+     */
+    private void updatePath(File path) {
+        File oldPath = this.path
         this.path = path
+        if (oldPath != path)
+            getExecutionContext()?.filePathChanged(this, oldPath)
     }
 
     String getAbsolutePath() {
@@ -563,12 +573,12 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
         if (resetFilename) {
             File temp = path
             Tuple2<File, FilenamePattern> fnresult = getFilename(this, selectionTag)
-            this.path = fnresult?.x
             this.appliedFilenamePattern = fnresult?.y
-            if (path == null) {
+            if (fnresult?.x == null) {
                 //TODO Also this should be handled somehow else. It is occurring much too often.
 //                getExecutionContext().addErrorEntry(ExecutionContextError.EXECUTION_FILECREATION_PATH_NOTSET.expand("Setting a new filename with parent files returned null for " + this.getClass().getName() + " returning to " + (temp != null ? temp.getAbsolutePath() : "null"), Level.WARNING));
-                path = temp
+            } else {
+                updatePath(fnresult.x)
             }
         }
     }
@@ -631,21 +641,18 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
      * @param context
      * @return
      */
-    static synchronized LinkedHashMap<FilenamePatternDependency, LinkedList<FilenamePattern>> loadAvailableFilenamePatternsForBaseFileClass(
+    static LinkedHashMap<FilenamePatternDependency, LinkedList<FilenamePattern>> loadAvailableFilenamePatternsForBaseFileClass(
             BaseFile baseFile,
             ExecutionContext context) {
         Configuration cfg = context.getConfiguration()
+        FilenamePatternIndex index = cfg.filenamePatternIndex
         LinkedHashMap<FilenamePatternDependency, LinkedList<FilenamePattern>> availablePatterns = new LinkedHashMap<>()
 
-        FilenamePatternDependency.values().each { FilenamePatternDependency it -> availablePatterns[it] = new LinkedList<FilenamePattern>() }
-        for (FilenamePattern fp : cfg.filenamePatterns.allValuesAsList) {
-            if (fp.getCls() == baseFile.getClass()) {
-                availablePatterns[fp.getFilenamePatternDependency()] << fp
-            }
+        for (Map.Entry<FilenamePatternDependency, List<FilenamePattern>> entry : index.getPatterns(baseFile.getClass()).entrySet()) {
+            availablePatterns[entry.key] = new LinkedList<FilenamePattern>(entry.value)
         }
 
-        Collection<FilenamePattern> allFoundPatterns = availablePatterns.values().sum() as Collection<FilenamePattern>
-        if (allFoundPatterns.size() == 0) {
+        if (!index.hasPatterns(baseFile.getClass())) {
             logger.severe("Could not find any matching filename patterns for file class ${baseFile.class.name}. Please check your configuration." +
                     " Tried matching against:\n\t" + cfg.filenamePatterns.allValuesAsList.collect { it.cls }.join("\t\n"))
         }
@@ -775,24 +782,21 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
         //Find the called basefile method, if on_method patterns are available.
         if (!availablePatterns) return result
 
-        List<StackTraceElement> steByMethod = getAndFilterStackElementsToWorkflowInstance()
-
-        traceLoop:
-        for (StackTraceElement ste : steByMethod) {
-            for (FilenamePattern _fp : availablePatterns) {
-                OnMethodFilenamePattern fp = _fp as OnMethodFilenamePattern
-
-                String cmName = fp.getCalledMethodsName().getName()
-                String cmClass = fp.getCalledMethodsClass().getName()
-                if (cmName.equals(ste.getMethodName())
-                        && cmClass.equals(ste.getClassName())
-                        && fp.getSelectionTag().equals(selectionTag)) {
-                    //OOOOOH LOOK try this!
-                    File tempFN = new File(fp.apply(baseFile))
-                    appliedPattern = fp
-                    filename = tempFN
-                    break traceLoop
-                }
+        Map<String, OnMethodFilenamePattern> patternsByMethod = [:]
+        for (FilenamePattern _fp : availablePatterns) {
+            OnMethodFilenamePattern fp = _fp as OnMethodFilenamePattern
+            if (fp.getSelectionTag().equals(selectionTag))
+                patternsByMethod.putIfAbsent(
+                        MethodCallContext.CallFrame.toKey(fp.getCalledMethodsClass().getName(), fp.getCalledMethodsName().getName()), fp)
+        }
+        if (!patternsByMethod) return result
+
+        for (MethodCallContext.CallFrame frame : MethodCallContext.getFrames()) {
+            OnMethodFilenamePattern fp = patternsByMethod[frame.key]
+            if (fp) {
+                filename = new File(fp.apply(baseFile))
+                appliedPattern = fp
+                break
             }
         }
         if (!filename || !appliedPattern) return null
@@ -876,42 +880,6 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
         return new Tuple2<>(filename, appliedPattern)
     }
 
-    /**
-     * As the method name states, the method fetches a filtered list of all stack trace elements until the workflows execute method.
-     * @return
-     */
-    private static List<StackTraceElement> getAndFilterStackElementsToWorkflowInstance() {
-        String calledBaseFileMethodName = null
-        //Walk through the stack to get the method.
-        List<StackTraceElement> steByMethod = new LinkedList<>()
-        boolean constructorPassed = false
-        for (StackTraceElement ste : Thread.currentThread().getStackTrace()) {
-            try {
-                //Skip several methods
-
-                String methodName = ste.getMethodName()
-                if (methodName.equals("<init>")
-                        || methodName.endsWith("getFilename")
-                        || methodName.endsWith("getStackTrace")
-                ) {
-                    continue
-                }
-                //Abort when the workflows execute method is called.
-                if ((ste.getClassName().equals(ExecutionContext.class.getName())
-                        || Workflow.class.isAssignableFrom(LibrariesFactory.getGroovyClassLoader().loadClass(ste.getClassName())))
-                        && methodName.equals("execute"))
-                    break
-
-                //In all other cases add the method.
-//                    if (constructorPassed)
-                steByMethod.add(ste)
-            } catch (Exception ex) {
-
-            }
-        }
-        return steByMethod
-    }
-
     /**
      * Adds a job to the list of the parent jobs.
      *
@@ -231,6 +231,17 @@ class GenericMethod {
     }
 
     public <F extends FileObject> F _callGenericToolOrToolArray() {
+        // Output files are matched against onMethod patterns with the frames pushed by the workflow. Without frames,
+        // the calling methods are taken from the stack trace, at most once for all files of this call.
+        MethodCallContext.pushCallersOnDemand()
+        try {
+            return callGenericToolOrToolArrayWithCallers() as F
+        } finally {
+            MethodCallContext.pop()
+        }
+    }
+
+    private <F extends FileObject> F callGenericToolOrToolArrayWithCallers() {
 
         context.setCurrentExecutedTool(calledTool);
 
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.knowledge.methods
+
+import de.dkfz.roddy.core.ExecutionContext
+import de.dkfz.roddy.core.Workflow
+import de.dkfz.roddy.plugins.LibrariesFactory
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * A per thread stack of the workflow methods, which are currently executed. onMethod filename patterns are matched
+ * against these frames.
+ *
+ * Workflow code pushes frames explicitly, e.g. with withFrame() or Workflow.withMethodFrame(). If frames were pushed,
+ * only these are used and no stack trace is taken. Otherwise, the calling methods are taken from the stack trace as a
+ * fallback. GenericMethod opens a scope per tool call, in which the stack trace is taken at most once and only, if an
+ * onMethod filename pattern needs to be matched.
+ */
+@CompileStatic
+class MethodCallContext {
+
+    static class CallFrame {
+        final String className
+        final String methodName
+
+        CallFrame(String className, String methodName) {
+            this.className = className
+            this.methodName = methodName
+        }
+
+        String getKey() {
+            return toKey(className, methodName)
+        }
+
+        static String toKey(String className, String methodName) {
+            return className + "#" + methodName
+        }
+
+        String toString() {
+            return key
+        }
+    }
+
+    /**
+     * Frames pushed together. A scope opened with pushCallersOnDemand() has no frames, until they are requested and
+     * nothing else was pushed.
+     */
+    private static class Scope {
+        final boolean onDemand
+
+        List<CallFrame> frames
+
+        Scope(List<CallFrame> frames, boolean onDemand) {
+            this.frames = frames
+            this.onDemand = onDemand
+        }
+    }
+
+    /**
+     * Pushed scopes, the innermost first.
+     */
+    private static final ThreadLocal<Deque<Scope>> scopes = ThreadLocal.withInitial({
+        new ArrayDeque<Scope>()
+    })
+
+    /**
+     * Caches, if a class on the stack is a workflow class. Stack walking would otherwise try to load every class.
+     */
+    private static final Map<String, Boolean> workflowClasses = new ConcurrentHashMap<>()
+
+    static void push(Class cls, String methodName) {
+        push([new CallFrame(cls.name, methodName)])
+    }
+
+    static void push(List<CallFrame> frames) {
+        scopes.get().push(new Scope(frames, false))
+    }
+
+    /**
+     * Open a scope, in which the calling methods are taken from the stack trace once, if frames are requested and no
+     * frames were pushed explicitly. Close it with pop().
+     */
+    static void pushCallersOnDemand() {
+        scopes.get().push(new Scope(null, true))
+    }
+
+    static void pop() {
+        scopes.get().poll()
+    }
+
+    static <T> T withFrame(Class cls, String methodName, Closure<T> closure) {
+        push(cls, methodName)
+        try {
+            return closure.call()
+        } finally {
+            pop()
+        }
+    }
+
+    static boolean isEmpty() {
+        return scopes.get().isEmpty()
+    }
+
+    /**
+     * @return The pushed frames of this thread, the innermost first. If there are none, the filtered stack trace.
+     */
+    static List<CallFrame> getFrames() {
+        List<CallFrame> frames = []
+        Scope innermostOnDemand = null
+        for (Scope scope : scopes.get()) {
+            if (!scope.onDemand)
+                frames.addAll(scope.frames)
+            else if (innermostOnDemand == null)
+                innermostOnDemand = scope
+        }
+        if (frames)
+            return frames
+        if (innermostOnDemand == null)
+            return captureCallers()
+        if (innermostOnDemand.frames == null)
+            innermostOnDemand.frames = captureCallers()
+        return innermostOnDemand.frames
+    }
+
+    /**
+     * Fetch a filtered list of all stack trace elements until the workflows execute method, the innermost first.
+     */
+    static List<CallFrame> captureCallers() {
+        List<CallFrame> frames = []
+        for (StackTraceElement ste : Thread.currentThread().getStackTrace()) {
+            String methodName = ste.getMethodName()
+
+            // Skip several methods
+            if (methodName.equals("<init>")
+                    || methodName.endsWith("getFilename")
+                    || methodName.endsWith("getStackTrace")) {
+                continue
+            }
+
+            // Abort when the workflows execute method is called.
+            if (methodName.equals("execute") && isWorkflowOrContextClass(ste.getClassName()))
+                break
+
+            frames << new CallFrame(ste.getClassName(), methodName)
+        }
+        return frames
+    }
+
+    private static boolean isWorkflowOrContextClass(String className) {
+        if (className.equals(ExecutionContext.class.getName()))
+            return true
+        Boolean result = workflowClasses[className]
+        if (result == null) {
+            try {
+                result = Workflow.class.isAssignableFrom(LibrariesFactory.getGroovyClassLoader().loadClass(className))
+            } catch (Exception ex) {
+                result = false
+            }
+            workflowClasses[className] = result
+        }
+        return result
+    }
+}
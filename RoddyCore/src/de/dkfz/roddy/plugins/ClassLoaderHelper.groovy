@@ -7,7 +7,6 @@
 package de.dkfz.roddy.plugins
 
 import de.dkfz.roddy.Roddy
-import de.dkfz.roddy.execution.io.LocalExecutionHelper
 import de.dkfz.roddy.knowledge.files.BaseFile
 import de.dkfz.roddy.knowledge.files.FileObject
 import de.dkfz.roddy.tools.LoggerWrapper
@@ -15,6 +14,9 @@ import groovy.transform.CompileStatic
 import groovy.transform.TypeCheckingMode
 
 import java.lang.reflect.Method
+import java.util.concurrent.ConcurrentHashMap
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
 
 /**
  * Useful to load classes and synthetic classes.
@@ -26,7 +28,17 @@ class ClassLoaderHelper {
 
     final static LoggerWrapper logger = LoggerWrapper.getLogger(ClassLoaderHelper.class)
 
-    Map<PluginInfo, List<String>> classListCacheByPlugin = [:];
+    /**
+     * Fully qualified names of the classes in the indexed plugin jars by their simple name.
+     */
+    private final Map<String, List<String>> pluginClassesBySimpleName = new ConcurrentHashMap<>()
+
+    private final Set<File> indexedJars = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>())
+
+    /**
+     * Simple names, which could not be found in the Roddy packages. Reset, when a jar is indexed.
+     */
+    private final Set<String> namesNotInRoddyPackages = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>())
 
     Package[] _cachedRoddyPackages = null;
 
@@ -67,8 +79,10 @@ class ClassLoaderHelper {
 
         // Search core classes second. Find packages of Roddy first. Search for the class in every! package.
         // This is some bad reflection, but I won't get the package information without it!
+        // Names, which were not found before, are skipped, as the failing lookups are expensive.
         Class foundCoreClass = null;
         for (Package p in getRoddyPackages()) {
+            if (namesNotInRoddyPackages.contains(name)) break
             String className = "${p.name}.${name}"
             try {
                 foundCoreClass = LibrariesFactory.instance.loadClass(className)
@@ -84,30 +98,14 @@ class ClassLoaderHelper {
         // We found it in core, so return it.
         if (foundCoreClass)
             return foundCoreClass
+        namesNotInRoddyPackages << name
 
-        // This part of the code depends on the existence of jar on the system!
-        // Java normally ships jar with it and we check jar on startup. So this should pose no problems.
-        List<String> listOfClasses = []
+        // Jars are normally indexed, when the plugins are loaded. Index the ones, which were added otherwise.
         synchronized (LibrariesFactory.instance.loadedPlugins) {
-            LibrariesFactory.instance.loadedPlugins.each {
-                PluginInfo plugin ->
-                    if (!classListCacheByPlugin.containsKey(plugin)) {
-                        String text = LocalExecutionHelper.execute("jar tvf ${LibrariesFactory.instance.loadedJarsByPlugin[plugin]}")
-                        classListCacheByPlugin[plugin] = text.readLines();
-                    }
-                    for (String line in classListCacheByPlugin[plugin]) {
-                        if (!line.endsWith(".class")) continue;
-                        String cls = line.split("[ ]")[-1][0..-7];
-                        if (cls.endsWith("/" + name)) {
-                            cls = cls.replace("/", ".");
-                            cls = cls.replace("\\", ".");
-                            synchronized (listOfClasses) {
-                                listOfClasses << cls;
-                            }
-                        }
-                    }
-            }
+            for (PluginInfo plugin : LibrariesFactory.instance.loadedPlugins)
+                indexJar(LibrariesFactory.instance.loadedJarsByPlugin[plugin])
         }
+        List<String> listOfClasses = pluginClassesBySimpleName[name] ?: []
 
         if (listOfClasses.size() > 1) {
             logger.severe("Too many available classes, please specify fully, choosing one of the following: ")
@@ -124,6 +122,41 @@ class ClassLoaderHelper {
 
 
 
+    /**
+     * Add the classes of a plugin jar to the index for searchForClass(). The entries are read from the central
+     * directory of the jar, the classes are not loaded. Jars are only indexed once.
+     */
+    void indexJar(File jar) {
+        if (jar == null || !indexedJars.add(jar))
+            return
+
+        Map<String, List<String>> classes = [:]
+        try {
+            new ZipFile(jar).withCloseable { ZipFile zipFile ->
+                for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                    if (entry.isDirectory() || !entry.name.endsWith(".class"))
+                        continue
+                    String cls = entry.name[0..-7].replace("/", ".")
+                    String simpleName = cls.substring(cls.lastIndexOf(".") + 1)
+                    if (!classes.containsKey(simpleName))
+                        classes[simpleName] = []
+                    classes[simpleName] << cls
+                }
+            }
+        } catch (IOException ex) {
+            logger.warning("Could not read the classes of jar file ${jar}: ${ex.message}")
+            return
+        }
+
+        synchronized (pluginClassesBySimpleName) {
+            classes.each { String simpleName, List<String> names ->
+                pluginClassesBySimpleName[simpleName] = (pluginClassesBySimpleName[simpleName] ?: []) + names
+            }
+        }
+        // The classes of the jar may also be in a Roddy package.
+        namesNotInRoddyPackages.clear()
+    }
+
     public Class loadRealOrSyntheticClass(String classOfFileObject, String baseClassOfFileObject) {
         Class<BaseFile> _cls = searchForClass(classOfFileObject);
         if (_cls == null) {
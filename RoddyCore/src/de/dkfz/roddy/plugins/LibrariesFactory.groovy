@@ -259,6 +259,10 @@ class LibrariesFactory extends Initializable {
      * @return
      */
     static List<PluginDirectoryInfo> loadMapOfAvailablePlugins(List<File> pluginDirectories) {
+        return loadMapOfAvailablePlugins(pluginDirectories, PluginCatalog.getInstance())
+    }
+
+    static List<PluginDirectoryInfo> loadMapOfAvailablePlugins(List<File> pluginDirectories, PluginCatalog catalog) {
 
         //Search all plugin folders and also try to join those if possible.
         List<PluginDirectoryInfo> collectedPluginDirectories = [];
@@ -275,23 +279,75 @@ class LibrariesFactory extends Initializable {
                 mapOfErrorsForPluginFolders.get(pBaseDirectory, []) << "The plugins directory $pBaseDirectory is not readable.".toString()
             }
 
+            List<PluginCatalog.PluginEntry> catalogEntries = catalog.get(pBaseDirectory)
+            if (catalogEntries != null) {
+                logger.postRareInfo("Using the plugin catalog for ${pBaseDirectory}")
+                collectedPluginDirectories.addAll(loadPluginDirectoriesFromCatalog(pBaseDirectory, catalogEntries))
+                continue
+            }
+
+            List<PluginCatalog.PluginEntry> newCatalogEntries = []
             File[] directoryList = pBaseDirectory.listFiles().sort() as File[];
             for (File pEntry in directoryList) {
+                PluginDirectoryInfo info = loadPluginDirectory(pEntry)
+                if (catalog.enabled)
+                    newCatalogEntries << createCatalogEntry(pEntry, info)
+                if (info)
+                    collectedPluginDirectories << info
+            }
+            catalog.put(pBaseDirectory, newCatalogEntries)
+        }
+
+        return collectedPluginDirectories
+    }
+
+    /**
+     * Check a single entry of a plugin base directory.
+     * @return The info object or null, if the entry is not a valid plugin folder
+     */
+    private static PluginDirectoryInfo loadPluginDirectory(File pEntry) {
+        Map<String, List<String>> errors = [
+                PRIMARY_ERRORS  : [],
+                SECONDARY_ERRORS: []
+        ] as LinkedHashMap
+        def workflowType = determinePluginType(pEntry, errors)
+        mapOfErrorsForPluginEntries[pEntry.path] = (errors[PRIMARY_ERRORS] + errors[SECONDARY_ERRORS])
 
-                Map<String, List<String>> errors = [
-                        PRIMARY_ERRORS  : [],
-                        SECONDARY_ERRORS: []
-                ] as LinkedHashMap
-                def workflowType = determinePluginType(pEntry, errors)
-                mapOfErrorsForPluginEntries[pEntry.path] = (errors[PRIMARY_ERRORS] + errors[SECONDARY_ERRORS])
+        if (workflowType == PluginType.INVALID)
+            return null
 
-                if (workflowType == PluginType.INVALID)
-                    continue
+        return new PluginDirectoryInfo(pEntry, workflowType)
+    }
+
+    private static PluginCatalog.PluginEntry createCatalogEntry(File pEntry, PluginDirectoryInfo info) {
+        List<String> errors = new ArrayList<String>(mapOfErrorsForPluginEntries[pEntry.path])
+        if (!info)
+            return new PluginCatalog.PluginEntry(pEntry.name, PluginType.INVALID, errors, null, null)
+        return new PluginCatalog.PluginEntry(pEntry.name, info.type, errors, info.jarFile?.name, info.buildinfoLines)
+    }
 
-                collectedPluginDirectories << new PluginDirectoryInfo(pEntry, workflowType);
+    /**
+     * Recreate the info objects of a plugin base directory from the plugin catalog. Development folders (without a
+     * version in their name) are checked again, as their content is expected to change.
+     */
+    private static List<PluginDirectoryInfo> loadPluginDirectoriesFromCatalog(File pBaseDirectory, List<PluginCatalog.PluginEntry> catalogEntries) {
+        List<PluginDirectoryInfo> collectedPluginDirectories = []
+        for (PluginCatalog.PluginEntry catalogEntry : catalogEntries) {
+            File pEntry = new File(pBaseDirectory, catalogEntry.name)
+            if (!catalogEntry.name.contains("_")) {
+                PluginDirectoryInfo info = loadPluginDirectory(pEntry)
+                if (info)
+                    collectedPluginDirectories << info
+                continue
             }
-        }
 
+            mapOfErrorsForPluginEntries[pEntry.path] = new ArrayList<String>(catalogEntry.errors)
+            if (catalogEntry.type == PluginType.INVALID)
+                continue
+
+            File jarFile = catalogEntry.jarFileName ? new File(pEntry, catalogEntry.jarFileName) : null
+            collectedPluginDirectories << new PluginDirectoryInfo(pEntry, catalogEntry.type, jarFile, catalogEntry.buildinfoLines)
+        }
         return collectedPluginDirectories
     }
 
@@ -465,7 +521,7 @@ class LibrariesFactory extends Initializable {
             if (_entry.type == PluginType.NATIVE) {
                 newPluginInfo = new NativePluginInfo(pluginName, directory, pluginFullVersion, biHelper.getDependencies())
             } else if (_entry.type == PluginType.RODDY) {
-                File jarFile = directory.listFiles().find { File f -> f.name.endsWith ".jar"; }
+                File jarFile = _entry.jarFile
                 if (jarFile) {
                     newPluginInfo = new JarFullPluginInfo(pluginName, directory, jarFile, pluginFullVersion, biHelper.getRoddyAPIVersion(), biHelper.getJDKVersion(), biHelper.getDependencies())
                 } else {
@@ -493,14 +549,13 @@ class LibrariesFactory extends Initializable {
     static BuildInfoFileHelper loadBuildinfoHelperObject(String name, String fullVersion, File directory, PluginDirectoryInfo pluginDirectoryInfo) {
 
         BuildInfoFileHelper biHelper
-        if (pluginDirectoryInfo.needsBuildInfoFile()) {
-            biHelper = new BuildInfoFileHelper(name, fullVersion, directory.listFiles().find { File f -> f.name == BUILDINFO_TEXTFILE })
+        List<String> buildinfoLines = pluginDirectoryInfo.buildinfoLines
+        if (buildinfoLines != null) {
+            biHelper = new BuildInfoFileHelper(name, fullVersion, buildinfoLines)
+        } else if (pluginDirectoryInfo.needsBuildInfoFile()) {
+            throw new PluginLoaderException("The buildinfo.txt file is missing in plugin folder '${directory.absolutePath}'")
         } else {
-            File f = directory.listFiles().find { File f -> f.name == BUILDINFO_TEXTFILE }
-            if (f)
-                biHelper = new BuildInfoFileHelper(name, fullVersion, f.readLines())
-            else
-                biHelper = new BuildInfoFileHelper(name, fullVersion)
+            biHelper = new BuildInfoFileHelper(name, fullVersion)
         }
         return biHelper
 
@@ -659,6 +714,7 @@ class LibrariesFactory extends Initializable {
                     }
                     return;
                 }
+                classLoaderHelper.indexJar(jarFile)
             } else if (pi instanceof NativePluginInfo) {
 
             }
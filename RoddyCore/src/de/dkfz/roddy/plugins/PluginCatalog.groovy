@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.plugins
+
+import de.dkfz.roddy.Constants
+import de.dkfz.roddy.Roddy
+import de.dkfz.roddy.core.Initializable
+import de.dkfz.roddy.tools.LoggerWrapper
+import de.dkfz.roddy.tools.PersistentCaches
+import de.dkfz.roddy.tools.RoddyConversionHelperMethods
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Catalog of the plugin folders found in the plugin base directories. The entries of a base directory are reused as
+ * long as the modification time of the base directory did not change, i.e. as long as no plugin folder was added,
+ * removed or renamed.
+ *
+ * The catalog is only used, if the application property persistPluginCatalog is set. It is then loaded from and
+ * stored to the Roddy settings directory.
+ */
+@CompileStatic
+class PluginCatalog extends Initializable {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(PluginCatalog)
+
+    public static final String CACHE_FILENAME = "pluginCatalog.bin"
+
+    /**
+     * Written to the catalog file. A catalog written with another format or Roddy version is discarded.
+     */
+    private static final String FORMAT = "1:" + Constants.APP_CURRENT_VERSION_STRING
+
+    /**
+     * The stored information about a single entry of a plugin base directory.
+     */
+    static class PluginEntry implements Serializable {
+        private static final long serialVersionUID = 1L
+
+        final String name
+        final PluginType type
+        final List<String> errors
+        /**
+         * The name of the jar file in the plugin folder or null
+         */
+        final String jarFileName
+        /**
+         * The lines of the buildinfo.txt file or null
+         */
+        final List<String> buildinfoLines
+
+        PluginEntry(String name, PluginType type, List<String> errors, String jarFileName, List<String> buildinfoLines) {
+            this.name = name
+            this.type = type
+            this.errors = errors
+            this.jarFileName = jarFileName
+            this.buildinfoLines = buildinfoLines
+        }
+    }
+
+    static class DirectoryEntry implements Serializable {
+        private static final long serialVersionUID = 1L
+
+        final long lastModified
+        final List<PluginEntry> plugins
+
+        DirectoryEntry(long lastModified, List<PluginEntry> plugins) {
+            this.lastModified = lastModified
+            this.plugins = plugins
+        }
+    }
+
+    private static PluginCatalog instance
+
+    private final Map<String, DirectoryEntry> entries = new ConcurrentHashMap<>()
+
+    private final File cacheFile
+
+    private volatile boolean modified = false
+
+    static synchronized PluginCatalog getInstance() {
+        if (instance == null) {
+            instance = new PluginCatalog(isPersistent() ? new File(Roddy.getSettingsDirectory(), CACHE_FILENAME) : null)
+            instance.initialize()
+        }
+        return instance
+    }
+
+    private static boolean isPersistent() {
+        return RoddyConversionHelperMethods.toBoolean(
+                Roddy.applicationConfiguration.getOrSetApplicationProperty(Constants.APP_PROPERTY_PERSIST_PLUGIN_CATALOG, "false"),
+                false)
+    }
+
+    /**
+     * @param cacheFile The file to persist the catalog to or null to disable the catalog
+     */
+    PluginCatalog(File cacheFile) {
+        this.cacheFile = cacheFile
+    }
+
+    boolean isEnabled() {
+        return cacheFile != null
+    }
+
+    @Override
+    boolean initialize() {
+        if (cacheFile == null || !cacheFile.exists())
+            return true
+        try {
+            cacheFile.withObjectInputStream(getClass().classLoader) { ObjectInputStream stream ->
+                if (stream.readObject() == FORMAT)
+                    entries.putAll((Map<String, DirectoryEntry>) stream.readObject())
+            }
+        } catch (Exception ex) {
+            logger.warning("Could not read the plugin catalog ${cacheFile}: ${ex.message}")
+            entries.clear()
+        }
+        return true
+    }
+
+    @Override
+    void destroy() {
+        if (cacheFile == null || !modified)
+            return
+        try {
+            PersistentCaches.writeObjects(cacheFile, [FORMAT, new HashMap<String, DirectoryEntry>(entries)] as List<Object>)
+            modified = false
+        } catch (Exception ex) {
+            logger.warning("Could not write the plugin catalog ${cacheFile}: ${ex.message}")
+        }
+    }
+
+    /**
+     * @return The stored entries of the base directory or null, if the catalog is disabled, if the directory is
+     *         unknown or if it changed
+     */
+    List<PluginEntry> get(File baseDirectory) {
+        if (!enabled)
+            return null
+        DirectoryEntry entry = entries[baseDirectory.absolutePath]
+        if (entry != null && entry.lastModified == baseDirectory.lastModified())
+            return entry.plugins
+        return null
+    }
+
+    void put(File baseDirectory, List<PluginEntry> plugins) {
+        if (!enabled)
+            return
+        long lastModified = baseDirectory.lastModified()
+        // The modification time of a recently modified directory might not change with the next modification.
+        if (!PersistentCaches.isSettled(lastModified)) {
+            entries.remove(baseDirectory.absolutePath)
+            return
+        }
+        entries[baseDirectory.absolutePath] = new DirectoryEntry(lastModified, plugins)
+        modified = true
+    }
+
+    int size() {
+        return entries.size()
+    }
+}
@@ -24,6 +24,15 @@ class PluginDirectoryInfo {
 
     final PluginType type
 
+    private File jarFile
+
+    private List<String> buildinfoLines
+
+    /**
+     * Set, if the jar file and the buildinfo lines were looked up or taken from the plugin catalog.
+     */
+    private boolean contentLoaded = false
+
     PluginDirectoryInfo(File file, PluginType pluginType) {
         String[] splitName = file.name.split(StringConstants.SPLIT_UNDERSCORE) // Split name and version
         directory = file
@@ -32,6 +41,42 @@ class PluginDirectoryInfo {
         type = pluginType
     }
 
+    /**
+     * Create the object from an entry of the plugin catalog without accessing the plugin folder.
+     */
+    PluginDirectoryInfo(File file, PluginType pluginType, File jarFile, List<String> buildinfoLines) {
+        this(file, pluginType)
+        this.jarFile = jarFile
+        this.buildinfoLines = buildinfoLines
+        contentLoaded = true
+    }
+
+    private synchronized void loadContent() {
+        if (contentLoaded)
+            return
+        File[] files = directory.listFiles() ?: new File[0]
+        jarFile = files.find { File f -> f.name.endsWith ".jar" }
+        File buildinfoFile = files.find { File f -> f.name == LibrariesFactory.BUILDINFO_TEXTFILE }
+        buildinfoLines = buildinfoFile ? buildinfoFile.readLines() : null
+        contentLoaded = true
+    }
+
+    /**
+     * @return The jar file in the plugin folder or null
+     */
+    File getJarFile() {
+        loadContent()
+        return jarFile
+    }
+
+    /**
+     * @return The lines of the buildinfo.txt file or null, if the plugin folder does not contain one
+     */
+    List<String> getBuildinfoLines() {
+        loadContent()
+        return buildinfoLines
+    }
+
     boolean needs
 
     boolean needsBuildInfoFile() {
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.tools
+
+import de.dkfz.roddy.Constants
+import de.dkfz.roddy.Roddy
+import de.dkfz.roddy.core.Initializable
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Process-wide cache for md5 sums of local files, e.g. of the plugin tools. A digest is reused as long as the size
+ * and the modification time of the file did not change. Digests of recently modified files are not cached, see
+ * PersistentCaches.isSettled().
+ *
+ * If the application property persistToolDigests is set, the digests are loaded from and stored to the Roddy
+ * settings directory. Repeated invocations then do not need to hash unchanged files again.
+ */
+@CompileStatic
+class FileDigestCache extends Initializable {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(FileDigestCache)
+
+    public static final String CACHE_FILENAME = "fileDigests.tsv"
+
+    static class Entry {
+        final long size
+        final long lastModified
+        final String md5
+
+        Entry(long size, long lastModified, String md5) {
+            this.size = size
+            this.lastModified = lastModified
+            this.md5 = md5
+        }
+    }
+
+    private static FileDigestCache instance
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>()
+
+    private final File cacheFile
+
+    private volatile boolean modified = false
+
+    static synchronized FileDigestCache getInstance() {
+        if (instance == null) {
+            instance = new FileDigestCache(isPersistent() ? new File(Roddy.getSettingsDirectory(), CACHE_FILENAME) : null)
+            instance.initialize()
+        }
+        return instance
+    }
+
+    private static boolean isPersistent() {
+        return RoddyConversionHelperMethods.toBoolean(
+                Roddy.applicationConfiguration.getOrSetApplicationProperty(Constants.APP_PROPERTY_PERSIST_TOOL_DIGESTS, "false"),
+                false)
+    }
+
+    /**
+     * @param cacheFile The file to persist the digests to or null
+     */
+    FileDigestCache(File cacheFile) {
+        this.cacheFile = cacheFile
+    }
+
+    @Override
+    boolean initialize() {
+        if (cacheFile == null || !cacheFile.exists())
+            return true
+        try {
+            // md5, size, modification time and the canonical path separated by tabs
+            for (String line : cacheFile.readLines("UTF-8")) {
+                String[] split = line.split("\t", 4)
+                if (split.length != 4) continue
+                entries[split[3]] = new Entry(split[1] as long, split[2] as long, split[0])
+            }
+        } catch (Exception ex) {
+            logger.warning("Could not read the file digest cache ${cacheFile}: ${ex.message}")
+            entries.clear()
+        }
+        return true
+    }
+
+    @Override
+    void destroy() {
+        if (cacheFile == null || !modified)
+            return
+        try {
+            PersistentCaches.write(cacheFile) { OutputStream stream ->
+                Writer writer = new OutputStreamWriter(stream, "UTF-8")
+                for (Map.Entry<String, Entry> it : entries.entrySet())
+                    writer << it.value.md5 << "\t" << it.value.size << "\t" << it.value.lastModified << "\t" << it.key << "\n"
+                writer.flush()
+            }
+            modified = false
+        } catch (Exception ex) {
+            logger.warning("Could not write the file digest cache ${cacheFile}: ${ex.message}")
+        }
+    }
+
+    /**
+     * Get the md5 sum of the file. The file is only read, if it is unknown or if its size or modification time
+     * changed.
+     */
+    String getMD5(File file) {
+        File canonicalFile = file.canonicalFile
+        String key = canonicalFile.path
+        long size = canonicalFile.length()
+        long lastModified = canonicalFile.lastModified()
+
+        Entry entry = entries[key]
+        if (entry != null && entry.size == size && entry.lastModified == lastModified)
+            return entry.md5
+
+        String md5 = RoddyIOHelperMethods.getMD5OfFile(canonicalFile)
+        // A missing file has neither size nor modification time and is not cached. A recently modified file could
+        // still change without changing its modification time.
+        if (PersistentCaches.isSettled(lastModified)) {
+            entries[key] = new Entry(size, lastModified, md5)
+            modified = true
+        }
+        return md5
+    }
+
+    int size() {
+        return entries.size()
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.tools
+
+import groovy.transform.CompileStatic
+
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+
+/**
+ * Helper methods for the caches, which are persisted to the Roddy settings directory between invocations.
+ *
+ * Several Roddy processes may save the same cache file at once. Each of them writes to its own temporary file next to
+ * the cache file, which then atomically replaces the cache file. Readers never see a partially written file and the
+ * last writer wins.
+ */
+@CompileStatic
+class PersistentCaches {
+
+    /**
+     * Files modified more recently could still change within the resolution of the modification time. Information
+     * about them must not be cached by size and modification time.
+     */
+    public static final long MINIMUM_AGE_MILLIS = 2000
+
+    /**
+     * @return true, if a file with the modification time exists and is old enough to cache information about it
+     */
+    static boolean isSettled(long lastModified) {
+        return lastModified > 0 && System.currentTimeMillis() - lastModified >= MINIMUM_AGE_MILLIS
+    }
+
+    /**
+     * Write the cache file atomically.
+     *
+     * @param writeTo Writes the content to the given output stream
+     */
+    static void write(File cacheFile, Closure writeTo) throws IOException {
+        File temporaryFile = File.createTempFile(cacheFile.name, ".tmp", cacheFile.parentFile)
+        try {
+            temporaryFile.withOutputStream { OutputStream stream -> writeTo(stream) }
+            Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING)
+        } finally {
+            temporaryFile.delete()
+        }
+    }
+
+    /**
+     * Write the objects with an ObjectOutputStream to the cache file atomically.
+     */
+    static void writeObjects(File cacheFile, List<Object> objects) throws IOException {
+        write(cacheFile) { OutputStream stream ->
+            ObjectOutputStream objectStream = new ObjectOutputStream(stream)
+            for (Object object : objects)
+                objectStream.writeObject(object)
+            objectStream.flush()
+        }
+    }
+}
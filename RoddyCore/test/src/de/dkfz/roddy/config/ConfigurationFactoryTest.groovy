@@ -158,6 +158,49 @@ class ConfigurationFactoryTest {
         assert ConfigurationFactory.getInstance().getAvailableConfigurationsOfType(Configuration.ConfigurationType.OTHER).size() == 2
     }
 
+    @Test
+    void testImportedConfigurationsAreLoadedOnce() {
+        File folder = contextResource.tempFolder.newFolder("diamondImports")
+        new File(folder, "shared.xml") << "<configuration name='shared'></configuration>"
+        new File(folder, "left.xml") << "<configuration name='left' imports='shared'></configuration>"
+        new File(folder, "right.xml") << "<configuration name='right' imports='shared'></configuration>"
+        new File(folder, "top.xml") << "<configuration name='top' imports='left,right'></configuration>"
+        ConfigurationFactory.initialize([folder])
+
+        Configuration top = ConfigurationFactory.instance.getConfiguration("top")
+        Configuration left = top.parents.find { Configuration it -> it.name == "left" }
+        Configuration right = top.parents.find { Configuration it -> it.name == "right" }
+
+        assert left.parents.size() == 1
+        assert left.parents[0].is(right.parents[0])
+        assert ConfigurationFactory.instance.getConfiguration("top").parents[0].is(left)
+        // Directly requested configurations are always new objects.
+        assert !ConfigurationFactory.instance.getConfiguration("shared").is(left.parents[0])
+    }
+
+    @Test
+    void testFilenameKillswitchDoesNotAffectSharedImports() {
+        File folder = contextResource.tempFolder.newFolder("sharedFilenamePatterns")
+        new File(folder, "sharedPatterns.xml") << """<configuration name='sharedPatterns'>
+                <filenames package='de.dkfz.roddy.knowledge.files' filestagesbase='de.dkfz.roddy.knowledge.files.FileStage'>
+                    ${STR_VALID_ONTOOL_PATTERN}
+                </filenames>
+            </configuration>"""
+        new File(folder, "analysisWithKillswitch.xml") << "<configuration configurationType='analysis' name='analysisWithKillswitch' imports='sharedPatterns'></configuration>"
+        new File(folder, "analysisWithoutKillswitch.xml") << "<configuration configurationType='analysis' name='analysisWithoutKillswitch' imports='sharedPatterns'></configuration>"
+        ConfigurationFactory.initialize([folder])
+
+        Configuration withKillswitch = ConfigurationFactory.instance.getConfiguration("analysisWithKillswitch")
+        assert withKillswitch.filenamePatterns.allValuesAsList.size() == 1
+        withKillswitch.removeFilenamePatternsRecursively()
+        assert withKillswitch.filenamePatterns.allValuesAsList.size() == 0
+
+        Configuration withoutKillswitch = ConfigurationFactory.instance.getConfiguration("analysisWithoutKillswitch")
+        assert withoutKillswitch.parents[0].is(withKillswitch.parents[0])
+        assert withoutKillswitch.filenamePatterns.allValuesAsList.size() == 1
+        assert withKillswitch.filenamePatterns.allValuesAsList.size() == 0
+    }
+
     private NodeChild asNodeChild(String text) {
         return (NodeChild) new XmlSlurper().parseText(text)
     }
@@ -6,7 +6,8 @@
 
 package de.dkfz.roddy.config
 
-
+import de.dkfz.roddy.knowledge.files.BaseFile
+import de.dkfz.roddy.knowledge.files.GenericFile
 import spock.lang.Specification
 
 import static de.dkfz.roddy.config.ConfigurationConstants.CVALUE_TYPE_INTEGER
@@ -55,4 +56,64 @@ class ConfigurationSpec extends Specification {
         cfgC.errors.size() == 1
         cfgC.errors[0].id == ConfigurationIssue.ConfigurationIssueTemplate.valueAndTypeMismatch
     }
+
+    void "evaluated values are cached until a referenced value changes"() {
+        given:
+        Configuration cfgA = new Configuration()
+        Configuration cfgB = new Configuration()
+        cfgB.addParent(cfgA)
+        cfgA.configurationValues << new ConfigurationValue(cfgA, "base", '/data')
+        cfgA.configurationValues << new ConfigurationValue(cfgA, "other", 'x')
+        cfgB.configurationValues << new ConfigurationValue(cfgB, "path", '${base}/${missing}')
+        cfgB.configurationValues << new ConfigurationValue(cfgB, "unrelated", '${other}/y')
+
+        expect:
+        cfgB.configurationValues["path"].evaluatedValue == '/data/${missing}'
+        cfgB.configurationValues["unrelated"].evaluatedValue == 'x/y'
+        def unrelatedEntry = cfgB.evaluationCache.get("unrelated", '${other}/y')
+        unrelatedEntry != null
+
+        when:
+        cfgA.configurationValues << new ConfigurationValue(cfgA, "base", '/other')
+
+        then:
+        cfgB.configurationValues["path"].evaluatedValue == '/other/${missing}'
+        cfgB.evaluationCache.get("unrelated", '${other}/y').is(unrelatedEntry)
+
+        when:
+        cfgB.configurationValues << new ConfigurationValue(cfgB, "missing", 'found')
+
+        then:
+        cfgB.configurationValues["path"].evaluatedValue == '/other/found'
+    }
+
+    void "filename pattern index is rebuilt, if patterns in the hierarchy change"() {
+        given:
+        Configuration cfgA = new Configuration()
+        Configuration cfgB = new Configuration()
+        cfgB.addParent(cfgA)
+        Class<BaseFile> cls = GenericFile as Class<BaseFile>
+        cfgA.filenamePatterns.add(new OnToolFilenamePattern(cls, "toolA", '/tmp/a', null))
+
+        when:
+        FilenamePatternIndex index = cfgB.filenamePatternIndex
+
+        then:
+        index.is(cfgB.filenamePatternIndex)
+        index.getPatterns(cls, FilenamePatternDependency.onTool)*.pattern == ['/tmp/a']
+        index.getPatterns(cls, FilenamePatternDependency.derivedFrom).isEmpty()
+
+        when:
+        cfgB.configurationValues << new ConfigurationValue(cfgB, "unrelated", 'abc')
+
+        then:
+        index.is(cfgB.filenamePatternIndex)
+
+        when:
+        cfgA.filenamePatterns.add(new OnToolFilenamePattern(cls, "toolB", '/tmp/b', null))
+
+        then:
+        !index.is(cfgB.filenamePatternIndex)
+        cfgB.filenamePatternIndex.getPatterns(cls, FilenamePatternDependency.onTool)*.pattern == ['/tmp/a', '/tmp/b']
+    }
 }
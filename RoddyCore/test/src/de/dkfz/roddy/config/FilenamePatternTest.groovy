@@ -183,8 +183,66 @@ class FilenamePatternTest {
         assert fpattern.fillConfigurationVariables(srcFull, context.configuration) == 'something_abc_${cvalue}_${pid}_${fileStageID[0]}'
     }
 
-    private FilenamePattern createFilenamePattern() {
-        String srcFull
+    @Test
+    void testCompileTemplate() {
+        FilenamePatternTemplate template = FilenamePatternTemplate.compile('${outputAnalysisBaseDirectory}/${cvalue,name="avalue",default="x"}/${sourcefileAtomicPrefix,delimiter="_"}_${pid[1]}.txt')
+        assert template.compiled
+        assert template.tokens*.type == [
+                FilenamePatternTemplate.PlaceholderType.outputAnalysisBaseDirectory,
+                FilenamePatternTemplate.PlaceholderType.literal,
+                FilenamePatternTemplate.PlaceholderType.cvalue,
+                FilenamePatternTemplate.PlaceholderType.literal,
+                FilenamePatternTemplate.PlaceholderType.sourcefileAtomicPrefix,
+                FilenamePatternTemplate.PlaceholderType.literal,
+                FilenamePatternTemplate.PlaceholderType.arrayValue,
+                FilenamePatternTemplate.PlaceholderType.literal,
+        ]
+        assert template.tokens[2].name == "avalue"
+        assert template.tokens[2].attribute == "x"
+        assert template.tokens[4].attribute == "_"
+        assert template.tokens[6].name == "pid"
+        assert template.tokens[6].index == 1
+
+        assert !FilenamePatternTemplate.compile('/tmp/abc_${unclosed').compiled
+        assert !FilenamePatternTemplate.compile(null).compiled
+    }
+
+    @Test
+    void testApplyTemplateLikeStepwiseReplacement() {
+        ExecutionContext context = createMockupContext()
+        BaseFile file = ContextResource.makeTestBaseFileInstance(context, "test")
+        FilenamePattern fpattern = createFilenamePattern('/tmp/${avalue}/${cvalue,name="anothervalue"}_${cvalue,name="unknown",default="bebe"}_${dataSet}_${unset}.txt')
+
+        assert fpattern.template.compiled
+        assert fpattern.apply(file) == '/tmp/abc/abc_bebe_TEST_PID_${unset}.txt'
+        assert fpattern.apply(file) == fpattern.applyStepwise([file] as BaseFile[])
+    }
+
+    @Test
+    void testFailingTemplateIsAppliedStepwiseAfterwards() {
+        ExecutionContext context = createMockupContext()
+        BaseFile file = ContextResource.makeTestBaseFileInstance(context, "test")
+        FilenamePattern fpattern = new FilenamePattern(LibrariesFactory.getInstance().loadRealOrSyntheticClass("FPTTestClass", "BaseFile"),
+                '/tmp/${sourcefileProperty,unknownProperty}.txt', DEFAULT) {
+
+            @Override
+            String getID() { return null }
+
+            @Override
+            FilenamePatternDependency getFilenamePatternDependency() { return null }
+
+            @Override
+            protected BaseFile getSourceFile(BaseFile[] baseFiles) { return baseFiles[0] }
+        }
+
+        assert fpattern.template.compiled
+        assert !fpattern.template.hasFailed()
+        assert fpattern.apply(file) == fpattern.applyStepwise([file] as BaseFile[])
+        assert fpattern.template.hasFailed()
+        assert fpattern.apply(file) == fpattern.applyStepwise([file] as BaseFile[])
+    }
+
+    private FilenamePattern createFilenamePattern(String srcFull = null) {
         def fpattern = new FilenamePattern(LibrariesFactory.getInstance().loadRealOrSyntheticClass("FPTTestClass", "BaseFile"), srcFull, DEFAULT) {
 
             @Override
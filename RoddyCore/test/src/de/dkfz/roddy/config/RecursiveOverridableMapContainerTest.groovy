@@ -79,4 +79,32 @@ class RecursiveOverridableMapContainerTest extends Specification {
         values['c'].toString() == 'C.c'
         values['d'].toString() == 'B2.b + C.c'
     }
+
+    def "resolved values are updated after modifications in the hierarchy"() {
+        given:
+        Configuration cfg = makeConfig()
+        def values = cfg.getConfigurationValues()
+        Configuration B1 = cfg.getParents()[0]
+        Configuration B3 = new Configuration(null)
+        B3.configurationValues.put('e', 'B3.e')
+
+        expect:
+        values.getValue('d').toString() == 'B2.b + C.c'
+        !values.hasValue('e')
+
+        when:
+        B1.configurationValues.put('d', 'B1.d')
+        cfg.addParent(B3)
+
+        then:
+        values.getValue('d').toString() == 'B1.d'
+        values.hasValue('e')
+        values.getValue('e').toString() == 'B3.e'
+
+        when:
+        B3.configurationValues.getMap().remove('e')
+
+        then:
+        !values.hasValue('e')
+    }
 }
@@ -179,6 +179,23 @@ class BashConverterTest {
 //
 //    }
 
+    @Test
+    void testGetConfigurationValuesSortedByDependenciesAndUnresolvable() {
+        List<ConfigurationValue> values = [
+                new ConfigurationValue("valueE", '${valueA}_${valueB}'),
+                new ConfigurationValue("valueC", '${valueA}'),
+                new ConfigurationValue("valueA", "abc"),
+                new ConfigurationValue("cycleA", '${cycleB}'),
+                new ConfigurationValue("valueB", "def"),
+                new ConfigurationValue("cycleB", '${cycleA}'),
+                new ConfigurationValue("valueD", '${undeclared}'),
+        ]
+        def result = new BashConverter().getConfigurationValuesSortedByDependenciesAndUnresolvable(values)
+
+        assert result.first.keySet() as List == ["valueA", "valueB", "valueE", "valueC"]
+        assert result.second.keySet() as List == ["cycleA", "cycleB", "valueD"]
+    }
+
     @Test
     void convertConfigurationValueToShellScriptLine() throws Exception {
         def configuration = createTestConfiguration()
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config.loader
+
+import spock.lang.Specification
+
+import javax.xml.stream.XMLStreamException
+
+class ConfigurationHeaderScannerSpec extends Specification {
+
+    def "scan the header of a project with analyses and subconfigurations"() {
+        when:
+        PreloadedConfigurationHeader header = ConfigurationHeaderScanner.scan("""
+            <configuration configurationType='project' name='proj' description='A project' imports='a,b' usedresourcessize='xl'>
+                <availableAnalyses>
+                    <analysis id='wgs' configuration='wgsAnalysis' useplugin='Plugin:1.0'>
+                        <subanalyses><analysis id='ignored' configuration='x'/></subanalyses>
+                    </analysis>
+                    <analysis id='exome' configuration='exomeAnalysis' killswitches='k1'/>
+                </availableAnalyses>
+                <configurationvalues>
+                    <cvalue name='value' value='1'/>
+                </configurationvalues>
+                <subconfigurations>
+                    <configuration name='variant' inheritAnalyses='true'>
+                        <subconfigurations>
+                            <configuration name='inner' configurationType='other'/>
+                        </subconfigurations>
+                    </configuration>
+                </subconfigurations>
+            </configuration>
+        """)
+
+        then:
+        header.type == "PROJECT"
+        header.name == "proj"
+        header.description == "A project"
+        header.imports == "a,b"
+        header.className == "de.dkfz.roddy.core.Project"
+        header.usedResourcesSize == "xl"
+        header.analyses == ["wgs::wgsAnalysis::useplugin=Plugin:1.0::killswitches=",
+                            "exome::exomeAnalysis::useplugin=::killswitches=k1"]
+
+        header.subConfigurations.size() == 1
+        header.subConfigurations[0].type == "PROJECT"
+        header.subConfigurations[0].name == "variant"
+        header.subConfigurations[0].analyses == header.analyses
+        header.subConfigurations[0].usedResourcesSize == "l"
+        header.subConfigurations[0].subConfigurations*.name == ["inner"]
+        header.subConfigurations[0].subConfigurations[0].type == "OTHER"
+        header.subConfigurations[0].subConfigurations[0].analyses == null
+    }
+
+    def "fail on malformed headers"() {
+        when:
+        ConfigurationHeaderScanner.scan("<configuration name='broken'><subconfigurations></configuration>")
+
+        then:
+        thrown(XMLStreamException)
+    }
+}
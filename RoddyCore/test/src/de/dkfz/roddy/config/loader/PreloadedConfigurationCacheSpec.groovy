@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config.loader
+
+import de.dkfz.roddy.config.Configuration
+import de.dkfz.roddy.config.PreloadedConfiguration
+import de.dkfz.roddy.config.ResourceSetSize
+import spock.lang.Specification
+
+class PreloadedConfigurationCacheSpec extends Specification {
+
+    static final String PROJECT_XML = "<configuration name='p' configurationType='project'><subconfigurations>" +
+            "<configuration name='v'><configurationvalues><cvalue name='a' value='1'/></configurationvalues></configuration>" +
+            "</subconfigurations></configuration>"
+
+    static final long OLD_TIMESTAMP = 1000000000000L
+
+    File createConfigurationFile(boolean backdate = true) {
+        File file = File.createTempFile("roddy", "preloadedConfigurationCacheTest.xml")
+        file.deleteOnExit()
+        file.text = PROJECT_XML
+        if (backdate)
+            file.setLastModified(OLD_TIMESTAMP)
+        return file
+    }
+
+    PreloadedConfigurationHeader createHeader() {
+        new PreloadedConfigurationHeader(type: "PROJECT", name: "p", analyses: ["a::b::useplugin=::killswitches="], usedResourcesSize: "l",
+                subConfigurations: [new PreloadedConfigurationHeader(type: "PROJECT", name: "v")])
+    }
+
+    def "headers are reused until size or modification time of the file change"() {
+        given:
+        File file = createConfigurationFile()
+        PreloadedConfigurationCache cache = new PreloadedConfigurationCache(null)
+
+        when:
+        cache.put(file, createHeader(), null)
+
+        then:
+        cache.get(file).header.name == "p"
+
+        when:
+        file.text = PROJECT_XML + " "
+
+        then:
+        cache.get(file) == null
+    }
+
+    def "headers of recently modified files are not cached"() {
+        given:
+        File file = createConfigurationFile(false)
+        PreloadedConfigurationCache cache = new PreloadedConfigurationCache(null)
+
+        when:
+        PreloadedConfigurationCache.Entry entry = cache.put(file, createHeader(), null)
+
+        then:
+        entry.header.name == "p"
+        cache.get(file) == null
+        cache.size() == 0
+    }
+
+    def "headers are persisted and loaded again"() {
+        given:
+        File file = createConfigurationFile()
+        File cacheFile = File.createTempFile("roddy", PreloadedConfigurationCache.CACHE_FILENAME)
+        cacheFile.deleteOnExit()
+        cacheFile.delete()
+
+        when:
+        PreloadedConfigurationCache cache = new PreloadedConfigurationCache(cacheFile)
+        cache.initialize()
+        cache.put(file, createHeader(), "converted")
+        cache.destroy()
+
+        PreloadedConfigurationCache reloaded = new PreloadedConfigurationCache(cacheFile)
+        reloaded.initialize()
+
+        then:
+        reloaded.size() == 1
+        reloaded.get(file).text == "converted"
+        reloaded.get(file).header.analyses == ["a::b::useplugin=::killswitches="]
+        reloaded.get(file).header.subConfigurations*.name == ["v"]
+    }
+
+    def "lazily created configurations read their text and node on request"() {
+        given:
+        File file = createConfigurationFile()
+        int reads = 0
+        List<PreloadedConfiguration> subContent = []
+        PreloadedConfiguration project = new PreloadedConfiguration(null, Configuration.ConfigurationType.PROJECT, "p", "", "", "",
+                ResourceSetSize.l, [], subContent, file, { reads++; file.text })
+        PreloadedConfiguration variant = new PreloadedConfiguration(project, Configuration.ConfigurationType.PROJECT, "v", "", "", "",
+                null, null, [], file, { project.text })
+        subContent << variant
+
+        expect:
+        reads == 0
+        variant.id == "p.v"
+        variant.configurationNode.configurationvalues.cvalue.@name.text() == "a"
+        project.configurationNode.@name.text() == "p"
+        variant.text == PROJECT_XML
+        reads == 1
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2018 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.core
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+
+class DataSetOutputBufferSpec extends Specification {
+
+    PrintStream originalOut = System.out
+
+    def cleanup() {
+        System.setOut(originalOut)
+    }
+
+    def "the output of buffering threads is written as one block per thread"() {
+        given:
+        ByteArrayOutputStream console = new ByteArrayOutputStream()
+        PrintStream consoleStream = new PrintStream(console, true)
+        System.setOut(consoleStream)
+        DataSetOutputBuffer outputBuffer = new DataSetOutputBuffer()
+        CountDownLatch firstLinesWritten = new CountDownLatch(2)
+
+        when:
+        outputBuffer.install()
+        List<Thread> threads = ["A", "B"].collect { String id ->
+            Thread thread = new Thread({
+                outputBuffer.buffer {
+                    System.out.println("${id}1")
+                    firstLinesWritten.countDown()
+                    firstLinesWritten.await()
+                    System.out.println("${id}2")
+                }
+            })
+            thread.start()
+            return thread
+        }
+        threads*.join()
+        System.out.println("main")
+        outputBuffer.uninstall()
+
+        then:
+        List<String> lines = console.toString().readLines()
+        lines.size() == 5
+        lines.indexOf("A2") == lines.indexOf("A1") + 1
+        lines.indexOf("B2") == lines.indexOf("B1") + 1
+        lines.last() == "main"
+        System.out.is(consoleStream)
+    }
+}
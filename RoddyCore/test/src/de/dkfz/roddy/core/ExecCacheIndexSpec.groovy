@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.core
+
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class ExecCacheIndexSpec extends Specification {
+
+    @Rule
+    TemporaryFolder temporaryFolder = new TemporaryFolder()
+
+    File cacheFile
+
+    List<Long> readOffsets = []
+
+    Closure<String> readFrom = { long offset ->
+        readOffsets << offset
+        if (!cacheFile.exists())
+            return null
+        byte[] bytes = cacheFile.bytes
+        return new String(bytes, (int) Math.min(offset, bytes.length), (int) Math.max(0, bytes.length - offset), StandardCharsets.UTF_8)
+    }
+
+    // /output/<dataset>/roddyExecutionStore/exec_...
+    Closure<String> dataSetIDOfPath = { File path -> path.parentFile.parentFile.name }
+
+    def setup() {
+        cacheFile = new File(temporaryFolder.root, ".roddyExecCache.txt")
+    }
+
+    def "read only the lines appended since the last update"() {
+        given:
+        ExecCacheIndex index = new ExecCacheIndex("/output/\${dataSet}")
+        cacheFile << "/output/A/roddyExecutionStore/exec_170101_100000000_user_analysis,analysis,user\n"
+        cacheFile << "/output/B/roddyExecutionStore/exec_170101_110000000_user_analysis,analysis,user\n"
+
+        when:
+        index.update(readFrom, dataSetIDOfPath)
+        long length = cacheFile.length()
+        cacheFile << "/output/A/roddyExecutionStore/exec_170102_100000000_user_analysis,analysis\n"
+        cacheFile << "/output/C/roddyExecutionStore/exec_1701"
+        index.update(readFrom, dataSetIDOfPath)
+
+        then:
+        readOffsets[0] == 0
+        readOffsets[1] > 0 && readOffsets[1] < length
+        index.entriesByDataSetID.keySet() == ["A", "B"] as Set
+        index.getEntries("A")*.path == ["/output/A/roddyExecutionStore/exec_170101_100000000_user_analysis",
+                                        "/output/A/roddyExecutionStore/exec_170102_100000000_user_analysis"]
+        index.getEntries("A")*.user == ["user", null]
+        index.getEntries("C") == []
+
+        when: "The incomplete line is finished"
+        cacheFile << "03_100000000_user_analysis,analysis,user\n"
+        index.update(readFrom, dataSetIDOfPath)
+
+        then:
+        index.getEntries("C").size() == 1
+        index.parsedLength == cacheFile.length()
+    }
+
+    def "read the file again, if it was replaced"() {
+        given:
+        ExecCacheIndex index = new ExecCacheIndex("/output/\${dataSet}")
+        cacheFile << "/output/A/roddyExecutionStore/exec_170101_100000000_user_analysis,analysis,user\n"
+        index.update(readFrom, dataSetIDOfPath)
+
+        when:
+        cacheFile.text = "/output/B/roddyExecutionStore/exec_170101_100000000_user_analysis,analysis,user\n" +
+                "/output/B/roddyExecutionStore/exec_170102_100000000_user_analysis,analysis,user\n"
+        index.update(readFrom, dataSetIDOfPath)
+
+        then:
+        index.entriesByDataSetID.keySet() == ["B"] as Set
+        index.getEntries("B").size() == 2
+
+        when:
+        cacheFile.delete()
+        index.update(readFrom, dataSetIDOfPath)
+
+        then:
+        index.entriesByDataSetID.isEmpty()
+        index.parsedLength == 0
+    }
+
+    def "parse a file larger than a chunk in the order of its lines"() {
+        given:
+        ExecCacheIndex index = new ExecCacheIndex("/output/\${dataSet}")
+        int lines = (int) (ExecCacheIndex.PARSE_CHUNK_SIZE / 40)
+        cacheFile.withWriter("UTF-8") { Writer writer ->
+            for (int i = 0; i < lines; i++)
+                writer << "/output/${i % 3}/roddyExecutionStore/exec_${String.format("%08d", i)}_üser,analysis,üser\n"
+        }
+
+        when:
+        index.update(readFrom, dataSetIDOfPath)
+
+        then:
+        index.entriesByDataSetID.keySet() == ["0", "1", "2"] as Set
+        index.entriesByDataSetID.values().sum { List entries -> entries.size() } == lines
+        index.getEntries("1")*.path == (0..<lines).findAll { it % 3 == 1 }.collect { "/output/1/roddyExecutionStore/exec_${String.format("%08d", it)}_üser".toString() }
+        index.parsedLength == cacheFile.length()
+
+        when:
+        cacheFile.append("/output/2/roddyExecutionStore/exec_99999999_üser,analysis,üser\n", "UTF-8")
+        index.update(readFrom, dataSetIDOfPath)
+
+        then:
+        readOffsets.last() > 0
+        index.getEntries("2").last().path.endsWith("exec_99999999_üser")
+        index.parsedLength == cacheFile.length()
+    }
+}
@@ -6,10 +6,16 @@
 
 package de.dkfz.roddy.core
 
+import de.dkfz.roddy.Constants
 import de.dkfz.roddy.RunMode
+import de.dkfz.roddy.SystemProperties
+import de.dkfz.roddy.config.ConfigurationConstants
+import de.dkfz.roddy.config.ConfigurationValue
 import de.dkfz.roddy.execution.io.ExecutionService
 import de.dkfz.roddy.execution.io.LocalExecutionService
 import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
+import de.dkfz.roddy.knowledge.files.BaseFile
+import de.dkfz.roddy.knowledge.files.GenericFile
 import groovy.transform.CompileStatic
 import org.junit.BeforeClass
 import org.junit.Rule;
@@ -63,4 +69,66 @@ public class ExecutionContextTest {
         assert context.getErrors().size() == 1
     }
 
+    @Test
+    public void getFileByPathFollowsPathChanges() throws Exception {
+        def context = createEmptyContext()
+        BaseFile first = BaseFile.constructSourceFile(GenericFile, new File("/tmp/RoddyTests/first"), context)
+        BaseFile second = BaseFile.constructSourceFile(GenericFile, new File("/tmp/RoddyTests/first"), context)
+        context.addFiles([first, second])
+        assert context.getFileByPath("/tmp/RoddyTests/first").is(first)
+
+        first.setPath(new File("/tmp/RoddyTests/moved"))
+        assert context.getFileByPath("/tmp/RoddyTests/moved").is(first)
+        assert context.getFileByPath("/tmp/RoddyTests/first").is(second)
+        assert context.getFileByPath("/tmp/RoddyTests/unknown") == null
+    }
+
+    @Test
+    public void writeStagedParameterFiles() throws Exception {
+        def context = createEmptyContext()
+        File directory = File.createTempDir("roddy", "stagedParameterFiles")
+        File parameterFile = new File(directory, "job.parameters")
+        context.stageParameterFile(parameterFile, "a=1")
+
+        assert context.writeStagedParameterFiles()
+        assert parameterFile.text == "a=1"
+
+        parameterFile.delete()
+        assert context.writeStagedParameterFiles()
+        assert !parameterFile.exists()
+    }
+
+    @Test
+    public void writeStagedParameterFilesKeepsFilesAfterFailure() throws Exception {
+        def context = createEmptyContext()
+        File directory = File.createTempDir("roddy", "stagedParameterFiles")
+        File blockingFile = new File(directory, "blocked")
+        blockingFile << "not a directory"
+        File parameterFile = new File(blockingFile, "job.parameters")
+        context.stageParameterFile(parameterFile, "a=1")
+
+        assert !context.writeStagedParameterFiles()
+        assert context.getErrors().size() == 1
+
+        blockingFile.delete()
+        assert context.writeStagedParameterFiles()
+        assert parameterFile.text == "a=1"
+    }
+
+    @Test
+    public void contextsOfAnAnalysisHaveTheirOwnConfigurationValues() throws Exception {
+        def context = createEmptyContext()
+        def otherContext = new ExecutionContext(SystemProperties.getUserName(), context.analysis, context.dataSet,
+                ExecutionContextLevel.UNSET, context.outputDirectory, context.inputDirectory, null)
+
+        context.configurationValues << new ConfigurationValue(context.configuration, ExecutionService.RODDY_CVALUE_DIRECTORY_EXECUTION,
+                "/tmp/firstContext", ConfigurationConstants.CVALUE_TYPE_PATH)
+
+        assert !context.configuration.is(otherContext.configuration)
+        assert context.configurationValues.getString(ExecutionService.RODDY_CVALUE_DIRECTORY_EXECUTION) == "/tmp/firstContext"
+        assert !otherContext.configurationValues.hasValue(ExecutionService.RODDY_CVALUE_DIRECTORY_EXECUTION)
+        assert !context.analysis.configuration.configurationValues.hasValue(ExecutionService.RODDY_CVALUE_DIRECTORY_EXECUTION)
+        assert otherContext.configurationValues.getString(Constants.PROJECT_NAME) == context.project.name
+    }
+
 }
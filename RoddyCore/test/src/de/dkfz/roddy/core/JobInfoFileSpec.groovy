@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.core
+
+import spock.lang.Specification
+
+class JobInfoFileSpec extends Specification {
+
+    String writeJobs(List<JobInfoFile.JobEntry> jobs) {
+        StringWriter writer = new StringWriter()
+        new JobInfoFileWriter(writer).withCloseable { JobInfoFileWriter jobInfoWriter ->
+            jobs.each { jobInfoWriter.writeJob(it) }
+        }
+        return writer.toString()
+    }
+
+    def "write and read back jobs"() {
+        given:
+        JobInfoFile.JobEntry job = new JobInfoFile.JobEntry(id: "1000", name: "jobA", command: "qsub <script> & echo", toolID: "toolA", toolMD5: "abc")
+        job.parameters["parameterA"] = 'value "A"'
+        job.files << new JobInfoFile.FileEntry(id: "11", path: "/tmp/a.txt", className: "TextFile", parentFiles: "1,2")
+        job.dependencies << new JobInfoFile.DependencyEntry(jobID: "999", fileID: "1", filePath: "/tmp/b.txt")
+        String text = writeJobs([job, new JobInfoFile.JobEntry(id: "1001", name: "jobB")])
+        List<JobInfoFile.JobEntry> jobs = []
+
+        when:
+        boolean complete = JobInfoFile.read(new StringReader(text)) { JobInfoFile.JobEntry it -> jobs << it; true }
+
+        then:
+        complete
+        jobs*.id == ["1000", "1001"]
+        jobs[0].name == "jobA"
+        jobs[0].command == "qsub <script> & echo"
+        jobs[0].toolID == "toolA"
+        jobs[0].toolMD5 == "abc"
+        jobs[0].parameters == [parameterA: 'value "A"']
+        jobs[0].files[0].path == "/tmp/a.txt"
+        jobs[0].files[0].className == "TextFile"
+        jobs[0].files[0].parentFiles == "1,2"
+        jobs[0].dependencies[0].jobID == "999"
+        jobs[1].toolMD5 == ""
+    }
+
+    def "stop reading early"() {
+        given:
+        String text = writeJobs([new JobInfoFile.JobEntry(id: "1"), new JobInfoFile.JobEntry(id: "2"), new JobInfoFile.JobEntry(id: "3")])
+        List<JobInfoFile.JobEntry> jobs = []
+
+        expect:
+        !JobInfoFile.read(new StringReader(text)) { JobInfoFile.JobEntry it -> jobs << it; jobs.size() < 2 }
+        jobs*.id == ["1", "2"]
+    }
+
+    def "read files written by MarkupBuilder"() {
+        given:
+        String text = """<jobinfo>
+  <jobs>
+    <job id='1' name='jobA'>
+      <tool toolid='toolA' md5='abc' />
+      <dependencies>
+        <job id='0' fileid='5' filepath='/tmp/b.txt' />
+      </dependencies>
+    </job>
+  </jobs>
+</jobinfo>"""
+        List<JobInfoFile.JobEntry> jobs = []
+
+        when:
+        JobInfoFile.read(new StringReader(text)) { JobInfoFile.JobEntry it -> jobs << it; true }
+
+        then:
+        jobs[0].toolID == "toolA"
+        jobs[0].dependencies*.jobID == ["0"]
+    }
+}
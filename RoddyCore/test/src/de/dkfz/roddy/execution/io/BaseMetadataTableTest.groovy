@@ -121,6 +121,30 @@ public class BaseMetadataTableTest {
         table.subsetBy((BaseMetadataTable.INPUT_TABLE_DATASET): "a", (RUMPLE_COL): "ambiguous")
     }
 
+    @Test
+    public void testSubsetOfSubset() {
+        BaseMetadataTable table = readTable(correctTable)
+        BaseMetadataTable subtable = table.subsetByDataset("a")
+        assert subtable.listDatasets() == ["a"]
+        assert subtable.listColumn(BaseMetadataTable.INPUT_TABLE_FILE) == ["a_tumor_lib1_run1_R1.fastq.gz", "a_tumor_lib1_run2_R2.fastq.gz",
+                                                                           "a_control_lib1_run5_R1.fastq.gz", "a_control_lib1_run6_R2.fastq.gz"]
+        assert subtable.subsetByColumn(BaseMetadataTable.INPUT_TABLE_FILE, "a_control_lib1_run5_R1.fastq.gz").size() == 1
+        assert subtable.unsafeSubsetByColumn(BaseMetadataTable.INPUT_TABLE_FILE, "a_tumor_lib2_run3_R1.fastq.gz").size() == 0
+        assert subtable.unsafeSubsetByColumn(RUMPLE_COL, "unknown").size() == 0
+        assert new BaseMetadataTable(subtable).size() == 4
+    }
+
+    @Test
+    public void testGetRecords() {
+        BaseMetadataTable table = readTable(correctTable)
+        assert table.getRecords().size() == 8
+        assert table.getRecords()[2] == [(BaseMetadataTable.INPUT_TABLE_DATASET): "b", (BaseMetadataTable.INPUT_TABLE_FILE): "a_tumor_lib2_run3_R1.fastq.gz", (RUMPLE_COL): "ambiguous"]
+        assert table.subsetByDataset("c").getTable()*.get(BaseMetadataTable.INPUT_TABLE_FILE) == ["a_control_lib2_run7_R1.fastq.gz", "a_control_lib2_run8_R2.fastq.gz"]
+
+        thrown.expect(UnsupportedOperationException.class)
+        table.getRecords().add([:])
+    }
+
     @Test
     public void testListDatasets() {
         BaseMetadataTable table = readTable(correctTable);
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import de.dkfz.roddy.core.ContextResource
+import net.schmizz.sshj.connection.channel.direct.Session
+import org.junit.Rule
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+class SSHExecutionServiceSpec extends Specification {
+
+    @Rule
+    final ContextResource contextResource = new ContextResource()
+
+    /**
+     * Runs the commands on a fake connection instead of the connection pool.
+     */
+    static class FakeSSHExecutionService extends SSHExecutionService {
+        SSHPoolConnectionSet connectionSet
+
+        int commandTimeout = 0
+
+        @Override
+        protected SSHPoolConnectionSet waitForService() {
+            return connectionSet
+        }
+
+        @Override
+        int getCommandTimeout() {
+            return commandTimeout
+        }
+    }
+
+    /**
+     * Each session prints its command to stdout, after the command closure returned, and ends. Closing the session
+     * ends the output immediately.
+     */
+    static class FakeConnectionSet extends SSHExecutionService.SSHPoolConnectionSet {
+        final AtomicInteger openSessions = new AtomicInteger(0)
+
+        int maxOpenSessions = 0
+
+        final AtomicInteger closedSessions = new AtomicInteger(0)
+
+        Closure command = { String command -> }
+
+        FakeConnectionSet(int maxChannels) {
+            super(0, "user", "host", "keyfile", maxChannels)
+        }
+
+        @Override
+        Session startSession() {
+            int open = openSessions.incrementAndGet()
+            synchronized (this) {
+                maxOpenSessions = Math.max(maxOpenSessions, open)
+            }
+
+            PipedOutputStream stdout = new PipedOutputStream()
+            PipedInputStream stdin = new PipedInputStream(stdout)
+            AtomicBoolean closed = new AtomicBoolean(false)
+
+            Session.Command cmd = [
+                    getInputStream: { stdin },
+                    getErrorStream: { new ByteArrayInputStream(new byte[0]) },
+                    join          : { -> },
+                    getExitStatus : { 0 },
+                    getExitSignal : { null },
+            ] as Session.Command
+
+            return [
+                    exec : { String commandString ->
+                        Thread.startDaemon {
+                            try {
+                                command(commandString)
+                                stdout.write((commandString + "\n").getBytes("UTF-8"))
+                            } catch (IOException ignored) {
+                                // The session was closed before.
+                            } finally {
+                                stdout.close()
+                            }
+                        }
+                        return cmd
+                    },
+                    close: { ->
+                        if (closed.compareAndSet(false, true)) {
+                            openSessions.decrementAndGet()
+                            closedSessions.incrementAndGet()
+                            stdout.close()
+                        }
+                    },
+            ] as Session
+        }
+    }
+
+    def "a command exceeding the timeout is cancelled with exit code 124 and its channel is closed"() {
+        given:
+        CountDownLatch neverEnding = new CountDownLatch(1)
+        FakeConnectionSet connectionSet = new FakeConnectionSet(1)
+        connectionSet.command = { String command -> neverEnding.await() }
+        SSHExecutionService service = new FakeSSHExecutionService(connectionSet: connectionSet, commandTimeout: 1)
+
+        when:
+        ExecutionResult result = service.execute("sleep 600", true)
+
+        then:
+        result.exitCode == SSHExecutionService.EXIT_CODE_TIMEOUT
+        !result.successful
+        connectionSet.closedSessions.get() == 1
+        connectionSet.openSessions.get() == 0
+
+        cleanup:
+        neverEnding.countDown()
+    }
+
+    def "concurrent commands do not open more channels than permitted per connection"() {
+        given:
+        CountDownLatch finish = new CountDownLatch(1)
+        FakeConnectionSet connectionSet = new FakeConnectionSet(2)
+        connectionSet.command = { String command -> finish.await() }
+        SSHExecutionService service = new FakeSSHExecutionService(connectionSet: connectionSet)
+        List<ExecutionResult> results = [].asSynchronized()
+
+        when:
+        List<Thread> threads = (1..6).collect { int i -> Thread.start { results << service.execute("echo ${i}".toString(), true) } }
+        new PollingConditions(timeout: 10).eventually { assert connectionSet.openSessions.get() == 2 }
+        Thread.sleep(200)
+        int openWhileBlocked = connectionSet.openSessions.get()
+        finish.countDown()
+        threads*.join()
+
+        then:
+        openWhileBlocked == 2
+        connectionSet.maxOpenSessions == 2
+        results.size() == 6
+        results.every { it.successful }
+        connectionSet.openSessions.get() == 0
+    }
+
+    def "executeInParallel returns the results in the order of the commands"() {
+        given:
+        FakeConnectionSet connectionSet = new FakeConnectionSet(4)
+        connectionSet.command = { String command -> Thread.sleep(command.toInteger() * 50) }
+        SSHExecutionService service = new FakeSSHExecutionService(connectionSet: connectionSet)
+        List<String> commands = ["6", "1", "4", "2", "5", "3"]
+
+        when:
+        List<ExecutionResult> results = service.executeInParallel(commands)
+
+        then:
+        results*.resultLines == commands.collect { [it] }
+        results.every { it.successful }
+    }
+}
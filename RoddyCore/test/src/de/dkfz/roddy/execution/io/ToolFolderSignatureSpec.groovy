@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+class ToolFolderSignatureSpec extends Specification {
+
+    @Rule
+    TemporaryFolder temporaryFolder = new TemporaryFolder()
+
+    File folder
+
+    def setup() {
+        folder = temporaryFolder.newFolder("tools")
+        new File(folder, "script.sh").text = "echo a"
+        new File(folder, "lib").mkdir()
+        new File(folder, "lib/helper.sh").text = "echo b"
+        long old = System.currentTimeMillis() - 10000
+        [folder, new File(folder, "script.sh"), new File(folder, "lib"), new File(folder, "lib/helper.sh")]*.setLastModified(old)
+    }
+
+    def "the signature lists all entries and does not change for an unchanged folder"() {
+        given:
+        File signatureFile = temporaryFolder.newFile("signature")
+
+        when:
+        ToolFolderSignature signature = ToolFolderSignature.of(folder)
+        signatureFile.text = signature.text
+
+        then:
+        signature.stable
+        signature.text.readLines()*.split("\t")*.getAt(0) == ["./", "lib/", "lib/helper.sh", "script.sh"]
+        ToolFolderSignature.of(folder).matches(signatureFile)
+    }
+
+    def "the signature changes with the content or permissions of a file"() {
+        given:
+        File signatureFile = temporaryFolder.newFile("signature")
+        signatureFile.text = ToolFolderSignature.of(folder).text
+        File script = new File(folder, "lib/helper.sh")
+
+        when:
+        change(script)
+
+        then:
+        !ToolFolderSignature.of(folder).matches(signatureFile)
+
+        where:
+        change << [
+                { File file -> file.text = "echo changed"; file.setLastModified(System.currentTimeMillis() - 10000) },
+                { File file -> file.setExecutable(!file.canExecute()) },
+                { File file -> new File(file.parentFile, "new.sh").text = "" },
+        ]
+    }
+
+    def "a recently modified folder is not stable"() {
+        when:
+        new File(folder, "script.sh").text = "echo now"
+
+        then:
+        !ToolFolderSignature.of(folder).stable
+    }
+}
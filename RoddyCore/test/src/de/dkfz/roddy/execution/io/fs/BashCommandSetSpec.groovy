@@ -79,4 +79,15 @@ class BashCommandSetSpec extends Specification {
         tmpb       | "*sub*/*.png"  | 'for f in $(ls "/tmp/b/"*sub*/*.png | sort); do echo "${f}"; done'
         tmpc       | "??\\ abc.png" | 'for f in $(ls "/tmp/c/"??\\ abc.png | sort); do echo "${f}"; done'
     }
+
+    def testGetProbeCommand(List<File> files, List<ProbeType> probeTypes, String result) {
+        expect:
+        b.getProbeCommand(files, probeTypes) == result
+
+        where:
+        files        | probeTypes                                        | result
+        [tmpa]       | [ProbeType.FILE_EXISTS]                           | '[[ -f "/tmp/a" ]] && printf \'TRUE \' || printf \'FALSE \'; echo'
+        [tmpa, tmpb] | [ProbeType.DIRECTORY_EXISTS, ProbeType.FILE_SIZE] | '[[ -d "/tmp/a" ]] && printf \'TRUE \' || printf \'FALSE \'; stat --printf=\'%s \' "/tmp/a" 2> /dev/null || printf -- \'-1 \'; echo; ' +
+                                                                           '[[ -d "/tmp/b" ]] && printf \'TRUE \' || printf \'FALSE \'; stat --printf=\'%s \' "/tmp/b" 2> /dev/null || printf -- \'-1 \'; echo'
+    }
 }
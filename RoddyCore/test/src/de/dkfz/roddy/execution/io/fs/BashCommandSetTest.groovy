@@ -39,6 +39,43 @@ class BashCommandSetTest {
         assert new BashCommandSet().getShellExecuteCommand("echo a;", "echo b;") == ["bash", "-c", "echo a;", "echo b;"]
     }
 
+    @Test
+    void testGetLockedAppendLinesToFileCommand() {
+        assert new BashCommandSet().getLockedAppendLinesToFileCommand(new File("/tmp/test.file"), ["a:0", "b:1"]) ==
+                'lockfile /tmp/test.file~; { echo "a:0"; echo "b:1"; } >> /tmp/test.file; rm -rf /tmp/test.file~'
+    }
+
+    @Test
+    void testGetReadOutBase64EncodedFileFromOffsetCommand() {
+        File file = File.createTempFile("roddy", "readFromOffsetTest.txt")
+        file.deleteOnExit()
+        file.setText("äb\nc,incomplete", "UTF-8")
+
+        Process process = ["bash", "-c", new BashCommandSet().getReadOutBase64EncodedFileFromOffsetCommand(file, 3)].execute()
+        String output = process.text
+        assert process.waitFor() == 0
+        assert new String(output.readLines().join("").decodeBase64(), "UTF-8") == "\nc,incomplete"
+    }
+
+    @Test
+    void testGetWriteTextFilesScript() {
+        File directory = File.createTempDir()
+        directory.deleteOnExit()
+        Map<File, String> textsByFile = [
+                (new File(directory, "a.parameters")): 'declare -x VALUE="$HOME `ls`"\nno newline at the end',
+                (new File(directory, "b.parameters")): "RODDY_EOF\näöü\n",
+        ]
+        String script = new BashCommandSet().getWriteTextFilesScript(textsByFile, ["touch ${directory}/done".toString()])
+
+        File scriptFile = new File(directory, "write.sh")
+        scriptFile.setText(script, "UTF-8")
+
+        Process process = ["bash", scriptFile.absolutePath].execute()
+        assert process.waitFor() == 0
+        textsByFile.each { File file, String text -> assert file.getText("UTF-8") == text }
+        assert new File(directory, "done").exists()
+    }
+
     @Test
     void testValidate() {
         // This method can only be tested if /bin/bash is really avaible. The test makes no sense in my oppinion
@@ -61,4 +61,46 @@ class FileSystemAccessProviderSpec extends Specification {
         baseFolder                      | "${baseFolder}/[a-z]*.txt"      | AbsolutePath           | [files[2]]
         baseFolder                      | "${baseFolder}/[a-z]b[a-z].png" | AbsolutePath           | [files[0], files[1]]
     }
-}
\ No newline at end of file
+
+    def "probe files and directories with a single command"() {
+        given:
+        File missing = new File(baseFolder, "missing.png")
+        File file = files[0]
+        file.text = "1234"
+
+        when:
+        Map<File, ProbeResult> result = fsap.probe([baseFolder, file, missing, file],
+                EnumSet.of(ProbeType.FILE_EXISTS, ProbeType.DIRECTORY_EXISTS, ProbeType.READABLE, ProbeType.FILE_SIZE))
+
+        then:
+        result.keySet() as List == [baseFolder, file, missing]
+        result[baseFolder].directoryExists
+        !result[baseFolder].fileExists
+        result[baseFolder].readable
+        result[file].fileExists
+        !result[file].directoryExists
+        result[file].readable
+        result[file].fileSize == 4
+        result[file].writable == null
+        !result[missing].fileExists
+        !result[missing].directoryExists
+        !result[missing].readable
+        result[missing].fileSize == -1
+    }
+
+    def "the NoNo provider probes without touching the file system"() {
+        given:
+        File missing = new File(baseFolder, "missing.png")
+
+        when:
+        Map<File, ProbeResult> result = new NoNoFileSystemAccessProvider().probe([missing, null, missing],
+                EnumSet.of(ProbeType.FILE_EXISTS, ProbeType.WRITABLE, ProbeType.FILE_SIZE))
+
+        then:
+        result.keySet() as List == [missing]
+        result[missing].fileExists
+        result[missing].writable
+        result[missing].readable == null
+        result[missing].fileSize == -1
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.jobs
+
+import spock.lang.Specification
+
+class JobStateJournalSpec extends Specification {
+
+    List<List<String>> appended = []
+
+    /**
+     * The number of lines, which can be appended, before appending fails
+     */
+    int appendableLines = Integer.MAX_VALUE
+
+    boolean appendThrows = false
+
+    JobStateJournal journal = new JobStateJournal({ List<String> lines ->
+        if (appendThrows)
+            throw new IOException("Connection lost")
+        int count = Math.min(appendableLines, lines.size())
+        if (count > 0)
+            appended << lines.subList(0, count)
+        return count
+    })
+
+    def "pending lines are appended with a single call on flush"() {
+        when:
+        journal.add("1:UNSTARTED:1000:tool")
+        journal.add("2:UNSTARTED:1000:tool")
+
+        then:
+        appended.isEmpty()
+        journal.pendingLines == ["1:UNSTARTED:1000:tool", "2:UNSTARTED:1000:tool"]
+
+        when:
+        boolean flushed = journal.flush()
+
+        then:
+        flushed
+        appended == [["1:UNSTARTED:1000:tool", "2:UNSTARTED:1000:tool"]]
+        journal.pendingLines.isEmpty()
+
+        when: "Nothing is pending"
+        journal.flush()
+
+        then:
+        appended.size() == 1
+    }
+
+    def "lines are kept for the next flush, if appending fails"() {
+        given:
+        journal.add("1:UNSTARTED:1000:tool")
+        appendableLines = 0
+
+        when:
+        boolean flushed = journal.flush()
+        journal.add("2:FAILED:1001:tool")
+
+        then:
+        !flushed
+        journal.pendingLines == ["1:UNSTARTED:1000:tool", "2:FAILED:1001:tool"]
+
+        when:
+        appendableLines = Integer.MAX_VALUE
+        journal.flush()
+
+        then:
+        appended == [["1:UNSTARTED:1000:tool", "2:FAILED:1001:tool"]]
+    }
+
+    def "only the lines, which were not appended, are kept for the next flush"() {
+        given:
+        journal.add("1:UNSTARTED:1000:tool")
+        journal.add("2:UNSTARTED:1000:tool")
+        journal.add("3:UNSTARTED:1000:tool")
+        appendableLines = 2
+
+        when:
+        boolean flushed = journal.flush()
+
+        then:
+        !flushed
+        appended == [["1:UNSTARTED:1000:tool", "2:UNSTARTED:1000:tool"]]
+        journal.pendingLines == ["3:UNSTARTED:1000:tool"]
+
+        when:
+        appendableLines = Integer.MAX_VALUE
+        journal.flush()
+
+        then:
+        appended == [["1:UNSTARTED:1000:tool", "2:UNSTARTED:1000:tool"], ["3:UNSTARTED:1000:tool"]]
+        journal.pendingLines.isEmpty()
+    }
+
+    def "lines are kept, if appending throws"() {
+        given:
+        journal.add("1:UNSTARTED:1000:tool")
+        appendThrows = true
+
+        when:
+        boolean flushed = journal.flush()
+
+        then:
+        !flushed
+        notThrown(IOException)
+        journal.pendingLines == ["1:UNSTARTED:1000:tool"]
+    }
+
+    def "pending lines can be read into a job state log"() {
+        given:
+        journal.add("1:UNSTARTED:1000:tool")
+
+        expect:
+        JobStateLog.read(journal.pendingLines).get("1").state == JobState.UNSTARTED
+    }
+}
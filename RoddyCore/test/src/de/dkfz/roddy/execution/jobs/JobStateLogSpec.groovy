@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.jobs
+
+import spock.lang.Specification
+
+class JobStateLogSpec extends Specification {
+
+    def "keep the latest entry of each job"() {
+        given:
+        String text = [
+                "1000:STARTED:1500000000:toolA",
+                "1001:STARTED:1500000001:toolB",
+                "null:N:1500000002:toolC",
+                "1000:0:1500000010:toolA",
+                "1001:ABORTED:1500000000:toolB",
+                "invalid",
+                "1002:UNSTARTED",
+                "1001:1:1500000005:toolB",
+        ].join("\n")
+
+        when:
+        JobStateLog log = JobStateLog.read(new StringReader(text))
+
+        then:
+        log.size() == 3
+        log.get("1000").state == JobState.COMPLETED_SUCCESSFUL
+        log.get("1000").timestamp == 1500000010L
+        log.get("1001").state == JobState.FAILED
+        log.get("1001").code == "1"
+        log.get("1002").state == JobState.UNSTARTED
+        log.get("1002").timestamp == 0L
+        log.get("null") == null
+    }
+
+    def "parse state code #code"(String code, JobState state) {
+        expect:
+        JobStateLog.parseStateCode(code) == state
+
+        where:
+        code         | state
+        "STARTED"    | JobState.STARTED
+        "57427"      | JobState.STARTED
+        "ABORTED"    | JobState.ABORTED
+        "60000"      | JobState.ABORTED
+        "SUCCESSFUL" | JobState.COMPLETED_SUCCESSFUL
+        "0"          | JobState.COMPLETED_SUCCESSFUL
+        "FAILED"     | JobState.FAILED
+        "255"        | JobState.FAILED
+        "something"  | JobState.UNKNOWN
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.knowledge.methods
+
+import spock.lang.Specification
+
+class MethodCallContextSpec extends Specification {
+
+    def "pushed frames are returned innermost first and removed again"() {
+        when:
+        MethodCallContext.push(String, "outer")
+        List<String> frames = MethodCallContext.withFrame(Integer, "inner") {
+            MethodCallContext.frames*.key
+        }
+        MethodCallContext.pop()
+
+        then:
+        frames == ["java.lang.Integer#inner", "java.lang.String#outer"]
+        MethodCallContext.isEmpty()
+    }
+
+    def "frames are removed, if the framed code fails"() {
+        when:
+        MethodCallContext.withFrame(String, "failing") { throw new RuntimeException("failed") }
+
+        then:
+        thrown(RuntimeException)
+        MethodCallContext.isEmpty()
+    }
+
+    def "without pushed frames the calling methods are taken from the stack"() {
+        expect:
+        framesSeenByHelper().contains(MethodCallContextSpec.name + "#framesSeenByHelper")
+    }
+
+    def "pushed frames are used instead of the stack trace within a tool call scope"() {
+        when:
+        MethodCallContext.push(String, "workflowMethod")
+        MethodCallContext.pushCallersOnDemand()
+        List<String> frames = framesSeenByHelper()
+        MethodCallContext.pop()
+        MethodCallContext.pop()
+
+        then:
+        frames == ["java.lang.String#workflowMethod"]
+        MethodCallContext.isEmpty()
+    }
+
+    def "without pushed frames a tool call scope takes the stack trace once"() {
+        when:
+        MethodCallContext.pushCallersOnDemand()
+        List<MethodCallContext.CallFrame> first = callFramesSeenByHelper()
+        List<MethodCallContext.CallFrame> second = MethodCallContext.frames
+        MethodCallContext.pop()
+
+        then:
+        first*.key.contains(MethodCallContextSpec.name + "#callFramesSeenByHelper")
+        first.is(second)
+        MethodCallContext.isEmpty()
+    }
+
+    private static List<String> framesSeenByHelper() {
+        return MethodCallContext.frames*.key
+    }
+
+    private static List<MethodCallContext.CallFrame> callFramesSeenByHelper() {
+        return MethodCallContext.frames
+    }
+}
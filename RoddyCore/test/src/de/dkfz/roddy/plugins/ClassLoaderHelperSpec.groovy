@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.plugins
+
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class ClassLoaderHelperSpec extends Specification {
+
+    @Rule
+    TemporaryFolder temporaryFolder = new TemporaryFolder()
+
+    File createJar(String name, List<String> entries) {
+        File jar = temporaryFolder.newFile(name)
+        new ZipOutputStream(new FileOutputStream(jar)).withCloseable { ZipOutputStream zip ->
+            entries.each { String entry ->
+                zip.putNextEntry(new ZipEntry(entry))
+                zip.closeEntry()
+            }
+        }
+        return jar
+    }
+
+    def "index the classes of plugin jars by simple name"() {
+        given:
+        ClassLoaderHelper helper = new ClassLoaderHelper()
+        File jarA = createJar("a.jar", ["de/dkfz/a/", "de/dkfz/a/SomeFile.class", "de/dkfz/a/Other.class", "resources/SomeFile.txt"])
+        File jarB = createJar("b.jar", ["de/dkfz/b/SomeFile.class"])
+
+        when:
+        helper.indexJar(jarA)
+        helper.indexJar(jarB)
+        helper.indexJar(jarA)
+
+        then:
+        helper.pluginClassesBySimpleName["SomeFile"] == ["de.dkfz.a.SomeFile", "de.dkfz.b.SomeFile"]
+        helper.pluginClassesBySimpleName["Other"] == ["de.dkfz.a.Other"]
+        !helper.pluginClassesBySimpleName.containsKey("SomeFile.txt")
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.plugins
+
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+class PluginCatalogSpec extends Specification {
+
+    @Rule
+    TemporaryFolder temporaryFolder = new TemporaryFolder()
+
+    static final long OLD_TIMESTAMP = 1000000000000L
+
+    File createPlugin(File baseDirectory, String name) {
+        File directory = new File(baseDirectory, name)
+        new File(directory, "resources/analysisTools").mkdirs()
+        new File(directory, "resources/configurationFiles").mkdirs()
+        new File(directory, LibrariesFactory.BUILDINFO_TEXTFILE) << "${LibrariesFactory.BUILDINFO_RUNTIME_APIVERSION}=3.0\n"
+        new File(directory, LibrariesFactory.BUILDVERSION_TEXTFILE) << "1.0\n0\n"
+        return directory
+    }
+
+    def "store and reload the entries of a plugin base directory"() {
+        given:
+        File cacheFile = new File(temporaryFolder.root, PluginCatalog.CACHE_FILENAME)
+        File baseDirectory = temporaryFolder.newFolder("plugins")
+        baseDirectory.setLastModified(OLD_TIMESTAMP)
+        PluginCatalog catalog = new PluginCatalog(cacheFile)
+        def entry = new PluginCatalog.PluginEntry("A_1.0.0-0", PluginType.RODDY, [], "A.jar", ["dependson=B:1.0.0-0"])
+
+        when:
+        catalog.put(baseDirectory, [entry])
+        catalog.destroy()
+        PluginCatalog reloaded = new PluginCatalog(cacheFile)
+        reloaded.initialize()
+
+        then:
+        reloaded.size() == 1
+        reloaded.get(baseDirectory).size() == 1
+        reloaded.get(baseDirectory)[0].name == "A_1.0.0-0"
+        reloaded.get(baseDirectory)[0].type == PluginType.RODDY
+        reloaded.get(baseDirectory)[0].jarFileName == "A.jar"
+        reloaded.get(baseDirectory)[0].buildinfoLines == ["dependson=B:1.0.0-0"]
+
+        when:
+        baseDirectory.setLastModified(OLD_TIMESTAMP + 10000)
+
+        then:
+        reloaded.get(baseDirectory) == null
+    }
+
+    def "recently modified directories and disabled catalogs are not stored"() {
+        given:
+        File baseDirectory = temporaryFolder.newFolder("plugins")
+        PluginCatalog catalog = new PluginCatalog(new File(temporaryFolder.root, PluginCatalog.CACHE_FILENAME))
+        PluginCatalog disabledCatalog = new PluginCatalog(null)
+
+        when:
+        catalog.put(baseDirectory, [])
+        baseDirectory.setLastModified(OLD_TIMESTAMP)
+        disabledCatalog.put(baseDirectory, [])
+
+        then:
+        catalog.size() == 0
+        disabledCatalog.size() == 0
+        disabledCatalog.get(baseDirectory) == null
+    }
+
+    def "load plugin directories from the catalog without scanning them again"() {
+        given:
+        File baseDirectory = temporaryFolder.newFolder("plugins")
+        File plugin = createPlugin(baseDirectory, "A_1.0.0-0")
+        new File(baseDirectory, "NoPlugin_1.0.0-0").mkdirs()
+        baseDirectory.setLastModified(OLD_TIMESTAMP)
+        PluginCatalog catalog = new PluginCatalog(new File(temporaryFolder.root, PluginCatalog.CACHE_FILENAME))
+
+        when:
+        List<PluginDirectoryInfo> scanned = LibrariesFactory.loadMapOfAvailablePlugins([baseDirectory], catalog)
+        // Not visible in the base directory, so the catalog entry stays valid.
+        new File(plugin, LibrariesFactory.BUILDVERSION_TEXTFILE).delete()
+        List<PluginDirectoryInfo> cached = LibrariesFactory.loadMapOfAvailablePlugins([baseDirectory], catalog)
+
+        then:
+        scanned*.directory == [plugin]
+        cached*.directory == [plugin]
+        cached[0].type == PluginType.RODDY
+        cached[0].buildinfoLines == ["${LibrariesFactory.BUILDINFO_RUNTIME_APIVERSION}=3.0".toString()]
+        cached[0].jarFile == null
+
+        when:
+        createPlugin(baseDirectory, "B_1.0.0-0")
+        baseDirectory.setLastModified(OLD_TIMESTAMP + 10000)
+        List<PluginDirectoryInfo> rescanned = LibrariesFactory.loadMapOfAvailablePlugins([baseDirectory], catalog)
+
+        then:
+        rescanned*.directory == [new File(baseDirectory, "B_1.0.0-0")]
+    }
+}
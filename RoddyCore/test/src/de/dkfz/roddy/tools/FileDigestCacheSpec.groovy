@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.tools
+
+import spock.lang.Specification
+
+class FileDigestCacheSpec extends Specification {
+
+    static final long OLD_TIMESTAMP = 1000000000000L
+
+    def "digests are reused until size or modification time of the file change"() {
+        given:
+        File tool = File.createTempFile("roddy", "digestCacheTest.sh")
+        tool.deleteOnExit()
+        tool.text = "echo a"
+        tool.setLastModified(OLD_TIMESTAMP)
+        FileDigestCache cache = new FileDigestCache(null)
+
+        when:
+        String first = cache.getMD5(tool)
+
+        then:
+        first == RoddyIOHelperMethods.getMD5OfFile(tool)
+        cache.getMD5(tool) == first
+        cache.size() == 1
+
+        when:
+        tool.text = "echo abc"
+
+        then:
+        cache.getMD5(tool) != first
+        cache.getMD5(tool) == RoddyIOHelperMethods.getMD5OfFile(tool)
+    }
+
+    def "digests of recently modified files are not cached"() {
+        given:
+        File tool = File.createTempFile("roddy", "digestCacheTest.sh")
+        tool.deleteOnExit()
+        tool.text = "echo a"
+        FileDigestCache cache = new FileDigestCache(null)
+
+        when:
+        String md5 = cache.getMD5(tool)
+
+        then:
+        md5 == RoddyIOHelperMethods.getMD5OfFile(tool)
+        cache.size() == 0
+    }
+
+    def "digests are persisted and loaded again"() {
+        given:
+        File tool = File.createTempFile("roddy", "digestCacheTest.sh")
+        tool.deleteOnExit()
+        tool.text = "echo a"
+        tool.setLastModified(OLD_TIMESTAMP)
+        File cacheFile = File.createTempFile("roddy", FileDigestCache.CACHE_FILENAME)
+        cacheFile.deleteOnExit()
+        cacheFile.delete()
+
+        when:
+        FileDigestCache cache = new FileDigestCache(cacheFile)
+        cache.initialize()
+        String md5 = cache.getMD5(tool)
+        cache.destroy()
+
+        FileDigestCache reloaded = new FileDigestCache(cacheFile)
+        reloaded.initialize()
+
+        then:
+        cacheFile.exists()
+        reloaded.size() == 1
+        reloaded.getMD5(tool) == md5
+    }
+}
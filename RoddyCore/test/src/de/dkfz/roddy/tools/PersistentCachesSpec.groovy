@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2017 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.tools
+
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+class PersistentCachesSpec extends Specification {
+
+    @Rule
+    TemporaryFolder temporaryFolder = new TemporaryFolder()
+
+    def "the cache file is replaced and no temporary files are left"() {
+        given:
+        File cacheFile = new File(temporaryFolder.root, "cache.bin")
+        cacheFile.text = "old"
+
+        when:
+        PersistentCaches.writeObjects(cacheFile, ["format", [a: 1]])
+
+        then:
+        temporaryFolder.root.list() as List == ["cache.bin"]
+        cacheFile.withObjectInputStream { ObjectInputStream stream -> [stream.readObject(), stream.readObject()] } == ["format", [a: 1]]
+    }
+
+    def "a failing writer keeps the old cache file"() {
+        given:
+        File cacheFile = new File(temporaryFolder.root, "cache.txt")
+        cacheFile.text = "old"
+
+        when:
+        PersistentCaches.write(cacheFile) { OutputStream stream ->
+            stream << "new"
+            throw new IOException("disk full")
+        }
+
+        then:
+        thrown(IOException)
+        cacheFile.text == "old"
+        temporaryFolder.root.list() as List == ["cache.txt"]
+    }
+
+    def "only files, which were not modified recently, are settled"() {
+        expect:
+        PersistentCaches.isSettled(1000000000000L)
+        !PersistentCaches.isSettled(System.currentTimeMillis())
+        !PersistentCaches.isSettled(0)
+    }
+}